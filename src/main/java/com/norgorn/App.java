@@ -3,6 +3,7 @@ package com.norgorn;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 
@@ -16,6 +17,7 @@ public class App {
     }
 
     @Bean
+    @ConditionalOnProperty(value = "app.print_beans", havingValue = "true")
     public CommandLineRunner commandLineRunner(ApplicationContext ctx) {
         return args -> {
 
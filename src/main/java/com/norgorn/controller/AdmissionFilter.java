@@ -0,0 +1,64 @@
+package com.norgorn.controller;
+
+import com.norgorn.service.AdmissionControl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/*
+Admission control for POST /run and /move, before anything is locked or scheduled.
+Retry-After is in whole seconds by the standard, moves need finer, so the same value also goes in milliseconds.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    public static final String RETRY_AFTER_MS = "Retry-After-Ms";
+
+    @Autowired
+    AdmissionControl admissionControl;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpoint(request).isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<AdmissionControl.Permit> permit = admissionControl.admit(endpoint(request).orElseThrow(),
+                request.getRemoteAddr());
+        if (permit.isEmpty()) {
+            long retryAfterMillis = admissionControl.getRetryAfter().toMillis();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+            response.setHeader(RETRY_AFTER_MS, String.valueOf(retryAfterMillis));
+            response.getWriter().write("overloaded");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permit.get().release();
+        }
+    }
+
+    private static Optional<AdmissionControl.Endpoint> endpoint(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()))
+            return Optional.empty();
+        String path = request.getServletPath();
+        if (path.equals("/move"))
+            return Optional.of(AdmissionControl.Endpoint.MOVE);
+        if (path.equals("/run") || path.startsWith("/run/"))
+            return Optional.of(AdmissionControl.Endpoint.RUN);
+        return Optional.empty();
+    }
+}
@@ -1,15 +1,21 @@
 package com.norgorn.controller;
 
 
+import com.norgorn.model.AdmissionStats;
 import com.norgorn.model.CellSymbol;
+import com.norgorn.model.MovePacing;
 import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+import com.norgorn.service.AdmissionControl;
 import com.norgorn.service.GameClient;
 import com.norgorn.service.GameProcessor;
+import com.norgorn.service.PeerLiveness;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
 import java.util.Optional;
 
 @Log4j2
@@ -22,6 +28,12 @@ public class GameController {
     @Autowired
     GameClient client;
 
+    @Autowired
+    PeerLiveness peerLiveness;
+
+    @Autowired
+    AdmissionControl admissionControl;
+
     @GetMapping(value = "/ping")
     public String pingPong() {
         log.info("ping");
@@ -33,14 +45,24 @@ public class GameController {
         client.sendPing();
     }
 
+    @GetMapping(value = "/heartbeat")
+    public void heartbeat() {
+        peerLiveness.heard();
+    }
+
     @PostMapping(value = "/run")
-    public void runGame() {
-        gameProcessor.run(Optional.empty());
+    public void runGame(@RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId,
+                        @RequestParam(value = "pacing", required = false) Optional<MovePacing> pacing,
+                        @RequestParam(value = "random", required = false) Optional<RandomMode> random) {
+        gameProcessor.run(gameId, Optional.empty(), pacing, random);
     }
 
     @PostMapping(value = "/run/{seed}")
-    public void runGame(@PathVariable(value = "seed", required = false) Optional<Integer> seed) {
-        gameProcessor.run(seed);
+    public void runGame(@PathVariable(value = "seed", required = false) Optional<Integer> seed,
+                        @RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId,
+                        @RequestParam(value = "pacing", required = false) Optional<MovePacing> pacing,
+                        @RequestParam(value = "random", required = false) Optional<RandomMode> random) {
+        gameProcessor.run(gameId, seed, pacing, random);
     }
 
     @GetMapping(value = "/seed")
@@ -51,22 +73,31 @@ public class GameController {
     }
 
     @GetMapping(value = "/symbol/{seed}")
-    public CellSymbol getSymbol(@PathVariable("seed") int seed) {
-        return gameProcessor.negotiateSymbol(seed);
+    public CellSymbol getSymbol(@PathVariable("seed") int seed,
+                                @RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId,
+                                @RequestParam(value = "pacing", required = false) Optional<MovePacing> pacing,
+                                @RequestParam(value = "random", required = false) Optional<RandomMode> random) {
+        return gameProcessor.negotiateSymbol(gameId, seed, pacing, random);
     }
 
     @PostMapping(value = "/move")
-    public ResponseEntity<?> gotMove(@RequestBody MoveResponse board) {
-        return gameProcessor.gotMove(board);
+    public ResponseEntity<?> gotMove(@RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId,
+                                     @RequestBody MoveResponse board) {
+        return gameProcessor.gotMove(gameId, board);
     }
 
     @PostMapping(value = "/reset")
-    public void gotMove() {
-        gameProcessor.reset();
+    public void gotMove(@RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId) {
+        gameProcessor.reset(gameId);
     }
 
     @GetMapping(value = "/status")
-    public String status() {
-        return gameProcessor.getState();
+    public String status(@RequestParam(value = "game", defaultValue = GameProcessor.DEFAULT_GAME) String gameId) {
+        return gameProcessor.getState(gameId);
+    }
+
+    @GetMapping(value = "/admission")
+    public Map<String, AdmissionStats> admission() {
+        return admissionControl.getStats();
     }
 }
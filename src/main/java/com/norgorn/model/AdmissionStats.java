@@ -0,0 +1,4 @@
+package com.norgorn.model;
+
+public record AdmissionStats(int inFlight, int queued, long accepted, long rejected) {
+}
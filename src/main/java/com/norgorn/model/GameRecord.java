@@ -0,0 +1,62 @@
+package com.norgorn.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+Finished game as seen by one instance, for export and replay.
+Moves are cells (row * 3 + column) in order, 4 bits each, the first move in the lowest bits.
+Latencies are round trips of the moves we sent, in microseconds.
+Version 1 files have no random mode, those games were played with LEGACY.
+ */
+public record GameRecord(String gameId, long startedAtMillis, long finishedAtMillis, int seed,
+                         RandomMode randomMode, CellSymbol mySymbol, GameStatus result, int movesCount, long packedMoves,
+                         int[] moveLatenciesMicros) {
+
+    public int move(int index) {
+        return (int) (packedMoves >>> (4 * index)) & 0xF;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(gameId);
+        out.writeLong(startedAtMillis);
+        out.writeLong(finishedAtMillis);
+        out.writeInt(seed);
+        out.writeByte(randomMode.ordinal());
+        out.writeByte(mySymbol.ordinal());
+        out.writeByte(result.ordinal());
+        out.writeByte(movesCount);
+        out.writeLong(packedMoves);
+        out.writeByte(moveLatenciesMicros.length);
+        for (int latency : moveLatenciesMicros) {
+            out.writeInt(latency);
+        }
+    }
+
+    public static GameRecord read(DataInput in, int version) throws IOException {
+        String gameId = in.readUTF();
+        long startedAtMillis = in.readLong();
+        long finishedAtMillis = in.readLong();
+        int seed = in.readInt();
+        RandomMode randomMode = version < 2 ? RandomMode.LEGACY : valueOf(RandomMode.values(), in.readUnsignedByte());
+        CellSymbol mySymbol = valueOf(CellSymbol.values(), in.readUnsignedByte());
+        GameStatus result = valueOf(GameStatus.values(), in.readUnsignedByte());
+        int movesCount = in.readUnsignedByte();
+        if (movesCount > Long.SIZE / 4)
+            throw new IOException("Corrupt record: " + movesCount + " moves");
+        long packedMoves = in.readLong();
+        int[] latencies = new int[in.readUnsignedByte()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = in.readInt();
+        }
+        return new GameRecord(gameId, startedAtMillis, finishedAtMillis, seed, randomMode, mySymbol, result,
+                movesCount, packedMoves, latencies);
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, int ordinal) throws IOException {
+        if (ordinal >= values.length)
+            throw new IOException("Corrupt record: no " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,15 @@
+package com.norgorn.model;
+
+/*
+How long we wait before sending our next move:
+ NONE - right away, for throughput
+ FIXED - app.move_delay, so that a human can follow the game
+ ADAPTIVE - up to app.move_delay, but shortened by observed round trip so the peer never hits its move timeout
+ */
+public enum MovePacing {
+
+    NONE,
+    FIXED,
+    ADAPTIVE
+
+}
@@ -0,0 +1,10 @@
+package com.norgorn.model;
+
+public enum PeerState {
+
+    UNKNOWN, // not heard from since we started, its silence doesn't count yet
+    ALIVE,
+    SUSPECT, // missed a couple of heartbeats
+    DEAD // silent for app.peer_dead_after, all games with it are failed
+
+}
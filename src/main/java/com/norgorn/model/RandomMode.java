@@ -0,0 +1,20 @@
+package com.norgorn.model;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/*
+Generator of the random moves of a game, both sides create it from the negotiated seed:
+ LEGACY - java.util.Random, the same moves for a seed as before SPLITTABLE was added; its every call is a CAS
+ SPLITTABLE - java.util.SplittableRandom, plain fields, cheaper when a lot of games move at once
+ */
+public enum RandomMode {
+
+    LEGACY,
+    SPLITTABLE;
+
+    public RandomGenerator create(int seed) {
+        return this == LEGACY ? new Random(seed) : new SplittableRandom(seed);
+    }
+}
@@ -0,0 +1,163 @@
+package com.norgorn.replay;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameRecord;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+import com.norgorn.service.GameExporter;
+import com.norgorn.service.GameState;
+import com.norgorn.service.GameStateBean;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+Reads files written by GameExporter, replays every game from its seed and checks that the moves are the same.
+ mvn compile exec:java -Dexec.mainClass=com.norgorn.replay.GameReplay -Dexec.args="export"
+Arguments are export files or directories with them.
+ */
+public class GameReplay {
+
+    private static final Set<GameStatus> FINISHED = EnumSet.of(GameStatus.WON, GameStatus.LOST, GameStatus.DRAW);
+    private static final int MISMATCHES_TO_PRINT = 10;
+
+    private long games;
+    private long mismatches;
+    private final Map<String, Long> results = new TreeMap<>();
+    private long totalDurationMillis;
+    private long totalLatencyMicros;
+    private long latencies;
+
+    public static void main(String[] args) throws IOException {
+        LoggingSystem.get(GameReplay.class.getClassLoader()).setLogLevel("com.norgorn", LogLevel.WARN);
+        GameReplay replay = new GameReplay();
+        for (String arg : args.length == 0 ? new String[]{"export"} : args) {
+            try (Stream<Path> files = Files.walk(Path.of(arg))) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    read(file, replay::check);
+                }
+            }
+        }
+        replay.print();
+    }
+
+    public static void read(Path file, Consumer<GameRecord> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile()), 64 * 1024))) {
+            int version = in.readInt() == GameExporter.MAGIC ? in.readUnsignedByte() : -1;
+            if (version < 1 || version > GameExporter.VERSION)
+                throw new IllegalStateException("Not an export file of a supported version: " + file);
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    return;
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length)
+                    return; // the file was not closed properly, the last record is incomplete
+                consumer.accept(readRecord(bytes, version, file));
+            }
+        }
+    }
+
+    private static GameRecord readRecord(byte[] bytes, int version, Path file) throws IOException {
+        ByteArrayInputStream recordIn = new ByteArrayInputStream(bytes);
+        try {
+            GameRecord record = GameRecord.read(new DataInputStream(recordIn), version);
+            if (recordIn.available() > 0)
+                throw new IOException("Corrupt record: " + recordIn.available() + " bytes left");
+            return record;
+        } catch (EOFException e) {
+            throw new IOException("Corrupt record: shorter than its fields in " + file, e);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " in " + file, e);
+        }
+    }
+
+    /*
+    Plays the game from scratch: the same seed makes both sides choose the same cells.
+    Returns the side which made the last move, it has seen all of them.
+     */
+    public static GameState replay(int seed) {
+        return replay(seed, RandomMode.LEGACY);
+    }
+
+    public static GameState replay(int seed, RandomMode randomMode) {
+        return replay(new GameStateBean(), new GameStateBean(), seed, randomMode);
+    }
+
+    public static GameState replay(GameState cross, GameState naught, int seed) {
+        return replay(cross, naught, seed, RandomMode.LEGACY);
+    }
+
+    public static GameState replay(GameState cross, GameState naught, int seed, RandomMode randomMode) {
+        cross.init(CellSymbol.CROSS, seed, randomMode);
+        naught.init(CellSymbol.NAUGHT, seed, randomMode);
+
+        GameState mover = cross;
+        MoveResponse move = cross.makeFirstMove();
+        while (move.newStatus() == GameStatus.WAITING) {
+            GameState next = mover == cross ? naught : cross;
+            Optional<String> validationError = next.validateMove(move.board());
+            if (validationError.isPresent())
+                throw new IllegalStateException("Replay made invalid move: " + validationError.get());
+            move = next.makeMove(move.board());
+            mover = next;
+        }
+        return mover;
+    }
+
+    /*
+    Finished games must be the same move by move, failed ones - until the failure
+     */
+    public static Optional<String> compare(GameRecord record, GameState lastMover) {
+        boolean finished = FINISHED.contains(record.result());
+        if (finished && record.movesCount() != lastMover.getMovesCount())
+            return Optional.of("%d moves instead of %d".formatted(record.movesCount(), lastMover.getMovesCount()));
+        if (record.movesCount() > lastMover.getMovesCount())
+            return Optional.of("more moves than possible: " + record.movesCount());
+        long mask = record.movesCount() >= Long.SIZE / 4 ? -1L : (1L << (4 * record.movesCount())) - 1;
+        if ((record.packedMoves() & mask) != (lastMover.getPackedMoves() & mask))
+            return Optional.of("moves %s instead of %s".formatted(
+                    Long.toHexString(record.packedMoves()), Long.toHexString(lastMover.getPackedMoves() & mask)));
+        if (finished) {
+            GameStatus expected = lastMover.getGameStatus() == GameStatus.DRAW ? GameStatus.DRAW
+                    : lastMover.getMySymbol() == record.mySymbol() ? GameStatus.WON : GameStatus.LOST;
+            if (expected != record.result())
+                return Optional.of("%s instead of %s".formatted(record.result(), expected));
+        }
+        return Optional.empty();
+    }
+
+    private void check(GameRecord record) {
+        games++;
+        Optional<String> mismatch = compare(record, replay(record.seed(), record.randomMode()));
+        if (mismatch.isPresent() && ++mismatches <= MISMATCHES_TO_PRINT) {
+            System.out.printf("Game %s (seed %d, %s): %s%n",
+                    record.gameId(), record.seed(), record.mySymbol().symbol(), mismatch.get());
+        }
+        results.merge(record.mySymbol().symbol() + " " + record.result(), 1L, Long::sum);
+        totalDurationMillis += record.finishedAtMillis() - record.startedAtMillis();
+        for (int latency : record.moveLatenciesMicros()) {
+            totalLatencyMicros += latency;
+            latencies++;
+        }
+    }
+
+    private void print() {
+        System.out.printf("Games: %d, replayed differently: %d%n", games, mismatches);
+        results.forEach((result, count) -> System.out.printf("%s: %d%n", result, count));
+        if (games > 0)
+            System.out.printf("Average game %.1f ms%n", (double) totalDurationMillis / games);
+        if (latencies > 0)
+            System.out.printf("Average move round trip %.1f ms%n", totalLatencyMicros / 1000.0 / latencies);
+    }
+}
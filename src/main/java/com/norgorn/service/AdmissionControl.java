@@ -0,0 +1,154 @@
+package com.norgorn.service;
+
+import com.norgorn.model.AdmissionStats;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Limits for /run and /move, each endpoint and each peer (remote address) separately.
+A request gets in only if both its endpoint and its peer have room, otherwise it should be told to retry later,
+which is better than queueing behind other games until their move timeouts fire.
+A request waits at most max_wait in total for both, and a peer's limiter is dropped once no request of it is left.
+Rejections are not logged one by one, see the counters in getStats(); those of a peer outlive its limiter,
+for the latest PEERS_REPORTED peers.
+ */
+@Service
+public class AdmissionControl {
+
+    static final int PEERS_REPORTED = 1024;
+
+    public enum Endpoint {
+        RUN,
+        MOVE
+    }
+
+    @Value("${app.admission.run.max_concurrent}")
+    int runMaxConcurrent;
+    @Value("${app.admission.run.max_queue}")
+    int runMaxQueue;
+
+    @Value("${app.admission.move.max_concurrent}")
+    int moveMaxConcurrent;
+    @Value("${app.admission.move.max_queue}")
+    int moveMaxQueue;
+
+    @Value("${app.admission.peer.max_concurrent}")
+    int peerMaxConcurrent;
+    @Value("${app.admission.peer.max_queue}")
+    int peerMaxQueue;
+
+    @Value("${app.admission.max_wait}")
+    Duration maxWait;
+
+    @Getter
+    @Value("${app.admission.retry_after}")
+    Duration retryAfter;
+
+    private final Map<Endpoint, AdmissionLimiter> endpoints = new EnumMap<>(Endpoint.class);
+    // Only peers with requests in progress
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    // Least recently active first
+    private final Map<String, AdmissionLimiter.Counters> peerCounters =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AdmissionLimiter.Counters> eldest) {
+                    return size() > PEERS_REPORTED;
+                }
+            });
+
+    @PostConstruct
+    void init() {
+        endpoints.put(Endpoint.RUN, new AdmissionLimiter(runMaxConcurrent, runMaxQueue));
+        endpoints.put(Endpoint.MOVE, new AdmissionLimiter(moveMaxConcurrent, moveMaxQueue));
+    }
+
+    /*
+    The peer first: a request queued behind others of its peer must not hold a place of the endpoint meanwhile
+     */
+    public Optional<Permit> admit(Endpoint endpoint, String peer) {
+        long deadlineNanos = System.nanoTime() + maxWait.toNanos();
+        AdmissionLimiter peerLimiter = join(peer);
+        if (!peerLimiter.tryAcquire(deadlineNanos)) {
+            leave(peer);
+            return Optional.empty();
+        }
+        AdmissionLimiter endpointLimiter = endpoints.get(endpoint);
+        if (!endpointLimiter.tryAcquire(deadlineNanos)) {
+            peerLimiter.release();
+            leave(peer);
+            return Optional.empty();
+        }
+        endpointLimiter.admitted();
+        peerLimiter.admitted();
+        return Optional.of(new Permit(endpointLimiter, peer, peerLimiter));
+    }
+
+    public Map<String, AdmissionStats> getStats() {
+        Map<String, AdmissionStats> stats = new LinkedHashMap<>();
+        endpoints.forEach((endpoint, limiter) -> stats.put(endpoint.name().toLowerCase(), limiter.getStats()));
+        synchronized (peerCounters) {
+            peerCounters.forEach((address, counters) -> {
+                Peer peer = peers.get(address);
+                stats.put("peer " + address, peer != null ? peer.limiter.getStats() : counters.getStats(0, 0));
+            });
+        }
+        return stats;
+    }
+
+    int getActivePeers() {
+        return peers.size();
+    }
+
+    // compute() runs under the key's lock, so a limiter is never dropped between join() and acquiring it
+    private AdmissionLimiter join(String address) {
+        return peers.compute(address, (a, peer) -> {
+            Peer joined = peer != null ? peer : new Peer(new AdmissionLimiter(peerMaxConcurrent, peerMaxQueue,
+                    peerCounters.computeIfAbsent(a, counters -> new AdmissionLimiter.Counters())));
+            joined.requests++;
+            return joined;
+        }).limiter;
+    }
+
+    private void leave(String address) {
+        peers.computeIfPresent(address, (a, peer) -> --peer.requests == 0 ? null : peer);
+    }
+
+    private static final class Peer {
+
+        private final AdmissionLimiter limiter;
+        private int requests;
+
+        private Peer(AdmissionLimiter limiter) {
+            this.limiter = limiter;
+        }
+    }
+
+    public final class Permit {
+
+        private final AdmissionLimiter endpoint;
+        private final String peer;
+        private final AdmissionLimiter peerLimiter;
+
+        private Permit(AdmissionLimiter endpoint, String peer, AdmissionLimiter peerLimiter) {
+            this.endpoint = endpoint;
+            this.peer = peer;
+            this.peerLimiter = peerLimiter;
+        }
+
+        public void release() {
+            peerLimiter.release();
+            leave(peer);
+            endpoint.release();
+        }
+    }
+}
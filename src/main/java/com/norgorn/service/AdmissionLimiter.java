@@ -0,0 +1,78 @@
+package com.norgorn.service;
+
+import com.norgorn.model.AdmissionStats;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+At most maxConcurrent requests at once, at most maxQueue more waiting until their deadline, the rest is rejected.
+A request is counted as accepted only once admitted() says every limiter it needed let it in.
+The counters may be shared with the limiter's successor, see AdmissionControl.
+ */
+public class AdmissionLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueue;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counters counters;
+
+    public AdmissionLimiter(int maxConcurrent, int maxQueue) {
+        this(maxConcurrent, maxQueue, new Counters());
+    }
+
+    public AdmissionLimiter(int maxConcurrent, int maxQueue, Counters counters) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.counters = counters;
+    }
+
+    public boolean tryAcquire(long deadlineNanos) {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            counters.rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        counters.rejected.incrementAndGet();
+        return false;
+    }
+
+    public void admitted() {
+        counters.accepted.incrementAndGet();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public AdmissionStats getStats() {
+        return counters.getStats(maxConcurrent - permits.availablePermits(), queued.get());
+    }
+
+    public static final class Counters {
+
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        public AdmissionStats getStats(int inFlight, int queued) {
+            return new AdmissionStats(inFlight, queued, accepted.get(), rejected.get());
+        }
+    }
+}
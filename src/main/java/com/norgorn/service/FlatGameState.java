@@ -0,0 +1,384 @@
+package com.norgorn.service;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameBoard;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.norgorn.service.GameStateBean.COLS_COUNT;
+import static com.norgorn.service.GameStateBean.ROWS_COUNT;
+
+/*
+Handle of one FlatGameStore slot. Plays exactly like GameStateBean, including the random moves for a seed:
+the slot keeps java.util.Random or SplittableRandom state and advances it the same way.
+Slot layout:
+ 0: generator state: 48 bits of Random or the 64-bit seed of SplittableRandom
+ 1: packed moves
+ 2: board (2 bits per cell, CellSymbol ordinal) | moves count << 18 | my symbol << 24 | status << 26
+    | random mode << 29 | seed << 32
+ 3: move counter | write lock << 31 | generation << 32 - generation changes on release
+Writes take the write lock with a CAS that also checks the generation, and release bumps the generation holding
+the lock, so a write of a stale handle fails as a whole and can't touch the next game in the slot.
+Reads check the generation after reading, so they fail rather than return what the next game wrote.
+ */
+@Log4j2
+final class FlatGameState implements GameState {
+
+    private static final int CELLS = ROWS_COUNT * COLS_COUNT;
+
+    private static final long BOARD_MASK = (1L << (2 * CELLS)) - 1;
+    private static final int MOVES_SHIFT = 18;
+    private static final long MOVES_MASK = 0x1FL << MOVES_SHIFT;
+    private static final int SYMBOL_SHIFT = 24;
+    private static final long SYMBOL_MASK = 0x3L << SYMBOL_SHIFT;
+    private static final int STATUS_SHIFT = 26;
+    private static final long STATUS_MASK = 0x7L << STATUS_SHIFT;
+    private static final int RANDOM_MODE_SHIFT = 29;
+    private static final long RANDOM_MODE_MASK = 0x3L << RANDOM_MODE_SHIFT;
+    private static final int SEED_SHIFT = 32;
+    private static final long SEED_MASK = 0xFFFFFFFFL << SEED_SHIFT;
+
+    private static final long LOCKED = 1L << 31;
+    private static final long COUNTER_MASK = LOCKED - 1;
+
+    // java.util.Random
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long RANDOM_MASK = (1L << 48) - 1;
+    // java.util.SplittableRandom(long seed)
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final CellSymbol[] SYMBOLS = CellSymbol.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+    private static final RandomMode[] RANDOM_MODES = RandomMode.values();
+
+    final FlatGameStore store;
+    final int slot;
+    private final AtomicLongArray chunk;
+    private final int base;
+    private final int generation;
+
+    FlatGameState(FlatGameStore store, int slot, AtomicLongArray chunk, int base, int generation) {
+        this.store = store;
+        this.slot = slot;
+        this.chunk = chunk;
+        this.base = base;
+        this.generation = generation;
+    }
+
+    static int generation(AtomicLongArray chunk, int base) {
+        return (int) (chunk.get(base + 3) >>> 32);
+    }
+
+    @Override
+    public void init(CellSymbol mySymbol, int seed, RandomMode randomMode) {
+        lock();
+        try {
+            chunk.set(base, randomMode == RandomMode.LEGACY ? (seed ^ MULTIPLIER) & RANDOM_MASK : seed);
+            update(SYMBOL_MASK | RANDOM_MODE_MASK | SEED_MASK, ((long) mySymbol.ordinal() << SYMBOL_SHIFT)
+                    | ((long) randomMode.ordinal() << RANDOM_MODE_SHIFT) | ((long) seed << SEED_SHIFT));
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public CellSymbol getMySymbol() {
+        return SYMBOLS[(int) ((word() & SYMBOL_MASK) >>> SYMBOL_SHIFT)];
+    }
+
+    @Override
+    public int getSeed() {
+        return (int) (word() >>> SEED_SHIFT);
+    }
+
+    @Override
+    public RandomMode getRandomMode() {
+        return RANDOM_MODES[(int) ((word() & RANDOM_MODE_MASK) >>> RANDOM_MODE_SHIFT)];
+    }
+
+    @Override
+    public GameStatus getGameStatus() {
+        return STATUSES[(int) ((word() & STATUS_MASK) >>> STATUS_SHIFT)];
+    }
+
+    @Override
+    public void setGameStatus(GameStatus gameStatus) {
+        lock();
+        try {
+            update(STATUS_MASK, (long) gameStatus.ordinal() << STATUS_SHIFT);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public GameBoard getPreviousBoard() {
+        return decode((int) (word() & BOARD_MASK));
+    }
+
+    /*
+    Only our last board is remembered, that's what they resend if they didn't get our answer
+     */
+    @Override
+    public Optional<GameBoard> getBoardFromHistory(GameBoard incomingBoard) {
+        int board = (int) (word() & BOARD_MASK);
+        return board != 0 && isValidSize(incomingBoard) && encode(incomingBoard) == board
+                ? Optional.of(incomingBoard)
+                : Optional.empty();
+    }
+
+    @Override
+    public Optional<String> validateMove(GameBoard currentBoard) {
+        return GameStateBean.validateMove(getMySymbol(), getPreviousBoard(), currentBoard);
+    }
+
+    @Override
+    public MoveResponse makeFirstMove() {
+        return makeMove(decode(0));
+    }
+
+    @Override
+    public MoveResponse makeMove(GameBoard currentBoard) {
+        int board = encode(currentBoard);
+        GameStatus status;
+        lock();
+        try {
+            status = makeMoveLocked(board);
+            board = (int) (word() & BOARD_MASK);
+        } finally {
+            unlock();
+        }
+        GameBoard newBoard = decode(board);
+        log.info("Moving from \n{}\n To \n{}\nWith status {}", currentBoard, newBoard, status);
+        return new MoveResponse(newBoard, status);
+    }
+
+    private GameStatus makeMoveLocked(int board) {
+        recordTheirMoveLocked(board);
+        int mySymbol = getMySymbol().ordinal();
+
+        // Same order of empty cells as in GameStateBean, so the same random number picks the same cell
+        int[] emptyCells = new int[CELLS];
+        int emptyCount = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cellAt(board, cell) == CellSymbol.EMPTY.ordinal()) {
+                emptyCells[emptyCount++] = cell;
+            }
+        }
+        if (emptyCount > 0) {
+            int cell = emptyCells[getRandomMode() == RandomMode.LEGACY
+                    ? nextInt(emptyCount)
+                    : nextSplittableInt(emptyCount)];
+            board |= mySymbol << (2 * cell);
+            recordMove(cell);
+        }
+
+        GameStatus status;
+        if (emptyCount == 0)
+            status = GameStatus.DRAW;
+        else if (detectVictory(board, mySymbol))
+            status = GameStatus.WON;
+        else
+            status = GameStatus.WAITING;
+        update(BOARD_MASK | STATUS_MASK, board | ((long) status.ordinal() << STATUS_SHIFT));
+        return status;
+    }
+
+    @Override
+    public void recordTheirMove(GameBoard currentBoard) {
+        int current = encode(currentBoard);
+        lock();
+        try {
+            recordTheirMoveLocked(current);
+        } finally {
+            unlock();
+        }
+    }
+
+    private void recordTheirMoveLocked(int current) {
+        int previous = (int) (word() & BOARD_MASK);
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cellAt(previous, cell) == CellSymbol.EMPTY.ordinal() && cellAt(current, cell) != CellSymbol.EMPTY.ordinal()) {
+                recordMove(cell);
+            }
+        }
+    }
+
+    @Override
+    public int getMoveCounter() {
+        return (int) (read(3) & COUNTER_MASK);
+    }
+
+    @Override
+    public int incrementAndGetMoveCounter() {
+        long current;
+        do {
+            current = chunk.get(base + 3);
+            checkGeneration(current);
+        } while (!chunk.compareAndSet(base + 3, current, current + 1));
+        return (int) ((current + 1) & COUNTER_MASK);
+    }
+
+    @Override
+    public long getPackedMoves() {
+        return read(1);
+    }
+
+    @Override
+    public int getMovesCount() {
+        return (int) ((word() & MOVES_MASK) >>> MOVES_SHIFT);
+    }
+
+    @Override
+    public String toString() {
+        return "FlatGameState{slot=" + slot + ", generation=" + generation + "}";
+    }
+
+    void clear() {
+        lock();
+        chunk.set(base, 0);
+        chunk.set(base + 1, 0);
+        chunk.set(base + 2, 0);
+        chunk.set(base + 3, (long) (generation + 1) << 32); // unlocks too
+    }
+
+    private long word() {
+        return read(2);
+    }
+
+    private long read(int index) {
+        long value = chunk.get(base + index);
+        checkGeneration(chunk.get(base + 3));
+        return value;
+    }
+
+    private void checkGeneration(long counterWord) {
+        if ((int) (counterWord >>> 32) != generation)
+            throw new IllegalStateException("Game state was released: " + this);
+    }
+
+    // Writes of one game are serialized by its session lock, so this hardly ever spins
+    private void lock() {
+        while (true) {
+            long current = chunk.get(base + 3);
+            checkGeneration(current);
+            if ((current & LOCKED) == 0 && chunk.compareAndSet(base + 3, current, current | LOCKED))
+                return;
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlock() {
+        chunk.getAndAdd(base + 3, -LOCKED); // only the holder clears it, counter increments keep it
+    }
+
+    private void update(long mask, long value) {
+        long current;
+        do {
+            current = chunk.get(base + 2);
+        } while (!chunk.compareAndSet(base + 2, current, (current & ~mask) | value));
+    }
+
+    private void recordMove(int cell) {
+        int moves = getMovesCount();
+        if (moves < Long.SIZE / 4) {
+            chunk.set(base + 1, chunk.get(base + 1) | ((long) cell << (4 * moves)));
+            update(MOVES_MASK, (long) (moves + 1) << MOVES_SHIFT);
+        }
+    }
+
+    // java.util.Random.nextInt(bound)
+    private int nextInt(int bound) {
+        int r = next(31);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r = (int) ((bound * (long) r) >> 31);
+        } else {
+            for (int u = r; u - (r = u % bound) + m < 0; u = next(31)) {
+            }
+        }
+        return r;
+    }
+
+    private int next(int bits) {
+        long state = (chunk.get(base) * MULTIPLIER + ADDEND) & RANDOM_MASK;
+        chunk.set(base, state);
+        return (int) (state >>> (48 - bits));
+    }
+
+    // SplittableRandom.nextInt(bound)
+    private int nextSplittableInt(int bound) {
+        int r = nextSplittable();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m;
+        } else {
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextSplittable() >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    // SplittableRandom.nextInt(): mix32 of the next seed
+    private int nextSplittable() {
+        long z = chunk.addAndGet(base, GOLDEN_GAMMA);
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    // Rows and columns only, like GameStateBean.detectVictory
+    private static boolean detectVictory(int board, int symbol) {
+        for (int line = 0; line < ROWS_COUNT; line++) {
+            boolean row = true;
+            boolean column = true;
+            for (int i = 0; i < COLS_COUNT; i++) {
+                row &= cellAt(board, line * COLS_COUNT + i) == symbol;
+                column &= cellAt(board, i * COLS_COUNT + line) == symbol;
+            }
+            if (row || column)
+                return true;
+        }
+        return false;
+    }
+
+    private static int cellAt(int board, int cell) {
+        return (board >>> (2 * cell)) & 0x3;
+    }
+
+    private static boolean isValidSize(GameBoard board) {
+        return board.rows().size() == ROWS_COUNT && board.rows().stream().allMatch(r -> r.size() == COLS_COUNT);
+    }
+
+    private static int encode(GameBoard board) {
+        if (!isValidSize(board))
+            throw new IllegalArgumentException("invalid board size");
+        int code = 0;
+        for (int rowNum = 0; rowNum < ROWS_COUNT; rowNum++) {
+            List<CellSymbol> row = board.rows().get(rowNum);
+            for (int colNum = 0; colNum < COLS_COUNT; colNum++) {
+                code |= row.get(colNum).ordinal() << (2 * (rowNum * COLS_COUNT + colNum));
+            }
+        }
+        return code;
+    }
+
+    private static GameBoard decode(int board) {
+        List<List<CellSymbol>> rows = new ArrayList<>(ROWS_COUNT);
+        for (int rowNum = 0; rowNum < ROWS_COUNT; rowNum++) {
+            List<CellSymbol> row = new ArrayList<>(COLS_COUNT);
+            for (int colNum = 0; colNum < COLS_COUNT; colNum++) {
+                row.add(SYMBOLS[cellAt(board, rowNum * COLS_COUNT + colNum)]);
+            }
+            rows.add(row);
+        }
+        return new GameBoard(rows);
+    }
+}
@@ -0,0 +1,66 @@
+package com.norgorn.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Game states in fixed-size slots of long arrays, for instances with a lot of games at once (app.flat_game_store).
+A slot is 4 longs = 32 bytes, plus a small FlatGameState handle; no Spring bean, Random, maps or boards per game.
+Slots are allocated in chunks and reused after release, the arena never shrinks.
+ */
+@Service
+public class FlatGameStore {
+
+    static final int SLOT_LONGS = 4;
+    static final int CHUNK_SLOTS = 1 << 14;
+
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+    private int[] freeSlots = new int[1024];
+    private int freeCount;
+    private int slotsInUse;
+
+    public synchronized GameState allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = chunks.length * CHUNK_SLOTS;
+            AtomicLongArray[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = new AtomicLongArray(CHUNK_SLOTS * SLOT_LONGS);
+            chunks = grown;
+            // The rest of the new chunk goes to the free list, lowest slots first
+            for (int i = CHUNK_SLOTS - 1; i > 0; i--) {
+                pushFree(slot + i);
+            }
+        }
+        slotsInUse++;
+        AtomicLongArray chunk = chunks[slot / CHUNK_SLOTS];
+        int base = (slot % CHUNK_SLOTS) * SLOT_LONGS;
+        return new FlatGameState(this, slot, chunk, base, FlatGameState.generation(chunk, base));
+    }
+
+    public synchronized void release(GameState state) {
+        if (!(state instanceof FlatGameState flat) || flat.store != this)
+            throw new IllegalArgumentException("Not allocated here: " + state);
+        flat.clear(); // fails if released already
+        slotsInUse--;
+        pushFree(flat.slot);
+    }
+
+    public synchronized int getSlotsInUse() {
+        return slotsInUse;
+    }
+
+    public synchronized long getArenaBytes() {
+        return (long) chunks.length * CHUNK_SLOTS * SLOT_LONGS * Long.BYTES;
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
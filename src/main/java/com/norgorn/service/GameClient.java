@@ -3,13 +3,20 @@ package com.norgorn.service;
 import com.google.gson.Gson;
 import com.norgorn.model.CellSymbol;
 import com.norgorn.model.GameStatus;
+import com.norgorn.model.MovePacing;
 import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @Log4j2
 @Service
 public class GameClient {
@@ -17,20 +24,43 @@ public class GameClient {
     @Value("${server.port}")
     int selfPort;
 
+    @Value("${app.peer_host}")
+    String peerHost;
+
+    // 0 means the demo pairing 8080 <-> 8081. Settable, because with server.port=0 it's known only after start,
+    // volatile, as it's set on another thread than the heartbeat and HTTP ones reading it.
+    @Setter
+    @Value("${app.peer_port}")
+    volatile int peerPort;
+
+    @Value("${app.move_timeout}")
+    Duration moveTimeout;
+
     private final OkHttpClient client = new OkHttpClient();
+    // A move answered after their move timeout is no use, we'd rather free the thread
+    private OkHttpClient moveClient;
     private final Gson gson = new Gson(); // No config required
 
+    @PostConstruct
+    void init() {
+        moveClient = client.newBuilder().callTimeout(moveTimeout).build();
+    }
+
     @SneakyThrows
     public int seed() {
-        try (Response response = get("seed")) {
+        try (Response response = get(url("seed"))) {
             generalCheckResponseCode(response);
             return gson.fromJson(response.body().string(), Integer.class);
         }
     }
 
     @SneakyThrows
-    public CellSymbol negotiateSymbol(int seed) {
-        try (Response response = get("symbol/" + seed)) {
+    public CellSymbol negotiateSymbol(String gameId, int seed, MovePacing pacing, RandomMode random) {
+        HttpUrl url = gameUrl("symbol/" + seed, gameId)
+                .addQueryParameter("pacing", pacing.name())
+                .addQueryParameter("random", random.name())
+                .build();
+        try (Response response = get(url)) {
             generalCheckResponseCode(response);
             return gson.fromJson(response.body().string(), CellSymbol.class);
         }
@@ -38,59 +68,113 @@ public class GameClient {
 
     @SneakyThrows
     public void sendPing() {
-        try (Response response = get("ping")) {
+        try (Response response = get(url("ping"))) {
             generalCheckResponseCode(response);
             log.info("Got ping response: {}", response.body().string());
         }
     }
 
+    /*
+    Empty result means they accepted the move, but have nothing to answer (i.e. the game is over for them).
+    PeerOverloadedException means they didn't look at it, so it may be sent again.
+     */
     @SneakyThrows
-    public MoveResponse sendMove(MoveResponse gameBoard) {
-        try (Response response = post("move", gameBoard)) {
+    public Optional<MoveResponse> sendMove(String gameId, MoveResponse gameBoard) {
+        try (Response response = post(moveClient, gameUrl("move", gameId).build(), gameBoard)) {
             log.info("Got move response: {}", response.code());
 
+            if (response.code() == 503) {
+                throw new PeerOverloadedException(retryAfter(response));
+            }
             if (response.code() == 400) {
                 log.error("We got bad request, validation failed: {}", response.body().string());
-                return new MoveResponse(null, GameStatus.RECEIVED_ERROR);
+                return Optional.of(new MoveResponse(null, GameStatus.RECEIVED_ERROR));
             }
             generalCheckResponseCode(response);
 
             String json = response.body().string();
-            return gson.fromJson(json, MoveResponse.class);
+            return Optional.ofNullable(gson.fromJson(json, MoveResponse.class));
+        }
+    }
+
+    /*
+    Never throws, any problem means they didn't answer
+     */
+    public boolean heartbeat(Duration timeout) {
+        Request request = new Request.Builder().get().url(url("heartbeat")).build();
+        try (Response response = client.newBuilder().callTimeout(timeout).build().newCall(request).execute()) {
+            return response.code() == 200;
+        } catch (Exception e) {
+            return false;
         }
     }
 
-    public void resetSilently() {
+    public void resetSilently(String gameId) {
         try {
-            try (Response response = post("reset", "")) {
+            try (Response response = post(gameUrl("reset", gameId).build(), "")) {
                 log.info("Reset them: {}", response.code());
             }
         } catch (Exception ignore) {
         }
     }
 
-    private Response get(String path) {
+    // Retry-After-Ms is ours, plain Retry-After is in seconds
+    private static Duration retryAfter(Response response) {
+        try {
+            String millis = response.header("Retry-After-Ms");
+            if (millis != null)
+                return Duration.ofMillis(Long.parseLong(millis));
+            String seconds = response.header("Retry-After");
+            if (seconds != null)
+                return Duration.ofSeconds(Long.parseLong(seconds));
+        } catch (NumberFormatException ignore) {
+        }
+        return Duration.ofSeconds(1);
+    }
+
+    private Response get(HttpUrl url) {
         Request.Builder builder = new Request.Builder().get();
-        return executeRequest(path, builder);
+        return executeRequest(client, url, builder);
     }
 
-    private <T> Response post(String path, T body) {
+    private <T> Response post(HttpUrl url, T body) {
+        return post(client, url, body);
+    }
+
+    private <T> Response post(OkHttpClient httpClient, HttpUrl url, T body) {
         String json = gson.toJson(body);
         Request.Builder builder = new Request.Builder().post(RequestBody.create(json, MediaType.get("application/json")));
-        return executeRequest(path, builder);
+        return executeRequest(httpClient, url, builder);
     }
 
     @SneakyThrows
-    private Response executeRequest(String path, Request.Builder builder) {
-        int otherPort = getOtherPort();
+    private Response executeRequest(OkHttpClient httpClient, HttpUrl url, Request.Builder builder) {
         Request request = builder
-                .url("http://localhost:" + otherPort + "/" + path)
+                .url(url)
                 .build();
-        Call call = client.newCall(request);
+        Call call = httpClient.newCall(request);
         return call.execute();
     }
 
+    private HttpUrl url(String path) {
+        return baseUrl(path).build();
+    }
+
+    private HttpUrl.Builder gameUrl(String path, String gameId) {
+        return baseUrl(path).addQueryParameter("game", gameId);
+    }
+
+    private HttpUrl.Builder baseUrl(String path) {
+        return new HttpUrl.Builder()
+                .scheme("http")
+                .host(peerHost)
+                .port(getOtherPort())
+                .addPathSegments(path);
+    }
+
     private int getOtherPort() {
+        if (peerPort != 0)
+            return peerPort;
         // Very primitive, but works for the demo. In reality the other server port should be taken from config params.
         return selfPort == 8080 ? 8081 : 8080;
     }
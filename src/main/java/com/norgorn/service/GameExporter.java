@@ -0,0 +1,152 @@
+package com.norgorn.service;
+
+import com.norgorn.model.GameRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Streams finished games to rolling files in app.export_dir, nothing is kept on the heap after a record is written.
+File: MAGIC, VERSION, then records, each prefixed with its length in bytes (see GameRecord.write).
+Games never wait for the disk: the writer has its own thread, and when its queue is full records are dropped.
+Instances may share the dir, so file names have the pid and an id of this instance, and files are never overwritten.
+ */
+@Log4j2
+@Service
+public class GameExporter {
+
+    public static final int MAGIC = 0x54545447; // "TTTG"
+    public static final int VERSION = 2; // 2: random mode in records
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${app.export_dir}")
+    String exportDir;
+
+    @Value("${app.export_file_size}")
+    DataSize maxFileSize;
+
+    @Value("${app.export_queue_size}")
+    int queueSize;
+
+    // Several instances may run in one JVM
+    private final String instanceId = ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private BlockingQueue<GameRecord> queue;
+    private Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private DataOutputStream out;
+    private int fileNumber;
+
+    @PostConstruct
+    void start() {
+        if (exportDir.isBlank())
+            return;
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writer = new Thread(this::writeLoop, "game-export");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Exporting finished games to {}", exportDir);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(5_000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    public void export(GameRecord record) {
+        if (queue == null)
+            return;
+        if (!queue.offer(record) && dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Export can't keep up, {} games dropped so far", dropped.get());
+        }
+    }
+
+    private void writeLoop() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream recordOut = new DataOutputStream(buffer);
+        List<GameRecord> batch = new ArrayList<>();
+        try {
+            // take() throws once interrupted, so whatever is still queued is written below
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                write(batch, buffer, recordOut);
+            }
+        } catch (InterruptedException stopping) {
+            queue.drainTo(batch);
+            write(batch, buffer, recordOut);
+        } finally {
+            closeFile();
+        }
+    }
+
+    private void write(List<GameRecord> batch, ByteArrayOutputStream buffer, DataOutputStream recordOut) {
+        if (batch.isEmpty())
+            return;
+        try {
+            for (GameRecord record : batch) {
+                buffer.reset();
+                record.write(recordOut);
+                if (out == null || out.size() + buffer.size() > maxFileSize.toBytes()) {
+                    rollFile();
+                }
+                out.writeInt(buffer.size());
+                buffer.writeTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            log.error("Failed to export {} games", batch.size(), e);
+            closeFile(); // next batch starts a new file
+        }
+        batch.clear();
+    }
+
+    private void rollFile() throws IOException {
+        closeFile();
+        Path dir = Path.of(exportDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("games-%s-%s-%04d.bin".formatted(
+                LocalDateTime.now().format(FILE_TIME), instanceId, fileNumber++));
+        Files.createFile(file); // fails if it exists
+        // Not Files.newOutputStream: its channel is closed when the writer is interrupted on shutdown
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        log.info("Exporting to {}", file);
+    }
+
+    private void closeFile() {
+        if (out == null)
+            return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.error("Failed to close export file", e);
+        }
+        out = null;
+    }
+}
@@ -3,7 +3,11 @@ package com.norgorn.service;
 import com.norgorn.model.CellSymbol;
 import com.norgorn.model.GameBoard;
 import com.norgorn.model.GameStatus;
+import com.norgorn.model.MovePacing;
 import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import kotlin.Pair;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +18,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -25,10 +37,18 @@ import java.util.function.Function;
 @Service
 public class GameProcessor {
 
+    public static final String DEFAULT_GAME = "default";
+
     @Autowired
     ApplicationContext appContext;
     @Autowired
     GameClient client;
+    @Autowired
+    PeerLiveness peerLiveness;
+    @Autowired
+    GameExporter exporter;
+    @Autowired
+    FlatGameStore flatGameStore;
 
     @Value("${app.move_delay}")
     Duration moveDelay;
@@ -36,165 +56,464 @@ public class GameProcessor {
     @Value("${app.move_timeout}")
     Duration moveTimeout;
 
-    GameStateBean stateBean;
+    @Value("${app.move_pacing}")
+    MovePacing defaultPacing;
+
+    @Value("${app.move_pacing_margin}")
+    Duration pacingMargin;
+
+    @Value("${app.random}")
+    RandomMode defaultRandom;
+
+    @Value("${app.flat_game_store}")
+    boolean useFlatGameStore;
+
+    @Value("${app.finished_game_ttl}")
+    Duration finishedGameTtl;
+
+    @Value("${app.finished_games_kept}")
+    int finishedGamesKept;
+
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+    // Only /status of evicted games, the latest ones
+    private final Map<String, String> finishedGames = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > finishedGamesKept;
+        }
+    });
+
+    @Value("${app.move_send_threads}")
+    int moveSendThreads;
+
+    @Value("${app.move_send_queue}")
+    int moveSendQueue;
 
-    private ScheduledExecutorService scheduler;
+    // The scheduler only waits out the move delay: a move blocks on their answer (up to app.move_timeout),
+    // so it is sent from a pool, and one slow answer doesn't hold up the moves of other games.
+    // The pool is bounded: a move that finds it full fails its game, see send().
+    private final ScheduledExecutorService moveScheduler = Executors.newSingleThreadScheduledExecutor();
+    private ThreadPoolExecutor moveSenders;
+    private final ScheduledThreadPoolExecutor deadlineTimer = newDeadlineTimer();
 
-    public String getState() {
-        return stateBean == null
-                ? "NOT_STARTED"
-                : "Status: %s\n Board:\n%s".formatted(stateBean.getGameStatus().name(), stateBean.getPreviousBoard());
+    @PostConstruct
+    void init() {
+        moveSenders = new ThreadPoolExecutor(moveSendThreads, moveSendThreads, 1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(moveSendQueue));
+        moveSenders.allowCoreThreadTimeOut(true);
+        peerLiveness.onDeath(() -> deadlineTimer.execute(this::finishFailedGames));
     }
 
-    public int seed() {
-        return new Random().nextInt(100); // Seed here may be random or any stable value
+    @PreDestroy
+    void stopSchedulers() {
+        moveScheduler.shutdownNow();
+        moveSenders.shutdownNow();
+        deadlineTimer.shutdownNow();
     }
 
-    public synchronized void run(Optional<Integer> seedOpt) {
-        stateBean = appContext.getBean(GameStateBean.class);
-        if (scheduler != null) {
-            scheduler.shutdownNow();
-            client.resetSilently();
+    public String getState(String gameId) {
+        GameSession session = sessions.get(gameId);
+        if (session != null) {
+            synchronized (session) {
+                if (!session.isReleased())
+                    return describe(session);
+            }
         }
-        scheduler = Executors.newScheduledThreadPool(1);
+        return finishedGames.getOrDefault(gameId, "NOT_STARTED");
+    }
 
-        Pair<CellSymbol, Integer> p;
-        try {
-            p = negotiateSymbol(seedOpt);
-        } catch (Exception e) {
-            stateBean.setGameStatus(GameStatus.DETECTED_ERROR);
-            throw new IllegalStateException("Symbol negotiation failed", e);
+    public Optional<GameSession> getSession(String gameId) {
+        return Optional.ofNullable(sessions.get(gameId));
+    }
+
+    public int seed() {
+        return ThreadLocalRandom.current().nextInt(100); // Seed here may be random or any stable value
+    }
+
+    public void run(String gameId, Optional<Integer> seedOpt, Optional<MovePacing> pacingOpt,
+                    Optional<RandomMode> randomOpt) {
+        RandomMode random = randomOpt.orElse(defaultRandom);
+        GameSession session = newSession(gameId, pacingOpt.orElse(defaultPacing));
+        GameSession previous = sessions.put(gameId, session);
+        if (previous != null) {
+            retire(previous);
+            client.resetSilently(gameId);
         }
-        CellSymbol ourSymbol = p.getFirst();
-        Integer seed = p.getSecond();
-        init(ourSymbol, seed);
 
+        CellSymbol ourSymbol;
+        // Negotiated under the lock: their first move may come before we know our symbol, it waits for init
+        synchronized (session) {
+            if (session.isReleased())
+                throw new IllegalStateException("Game " + gameId + " was replaced before it started");
+            Pair<CellSymbol, Integer> p;
+            try {
+                p = negotiateSymbol(session, seedOpt, random);
+            } catch (Exception e) {
+                fail(session);
+                throw new IllegalStateException("Symbol negotiation failed", e);
+            }
+            ourSymbol = p.getFirst();
+            Integer seed = p.getSecond();
+            init(session, ourSymbol, seed, random);
+
+            if (ourSymbol == CellSymbol.NAUGHT) {
+                log.info("We wait their move");
+                awaitTheirMove(session, session.getState().getMoveCounter());
+            }
+        }
         if (ourSymbol == CellSymbol.CROSS) {
             log.info("We move first");
-            makeMove(stateBean.makeFirstMove());
-        } else {
-            log.info("We wait their move");
+            makeMove(session, GameState::makeFirstMove, giveUpAt(System.nanoTime()));
         }
     }
 
-    public CellSymbol negotiateSymbol(int seed) {
-        Random rand = new Random(seed);
-        CellSymbol ourSymbol = rand.nextDouble() > 0.5 ? CellSymbol.CROSS : CellSymbol.NAUGHT;
-        if (ourSymbol == CellSymbol.CROSS) {
-            log.info("We move first");
-            stateBean = appContext.getBean(GameStateBean.class);
-            init(ourSymbol, seed);
-            // delay here doesn't matter ant may as well be 0
-            scheduler.schedule(() -> makeMove(stateBean.makeFirstMove()), moveDelay.toMillis(), TimeUnit.MILLISECONDS);
+    /*
+    No random mode means the peer doesn't know about them, so it plays with java.util.Random
+     */
+    public CellSymbol negotiateSymbol(String gameId, int seed, Optional<MovePacing> pacingOpt,
+                                      Optional<RandomMode> randomOpt) {
+        RandomMode random = randomOpt.orElse(RandomMode.LEGACY);
+        CellSymbol ourSymbol = random.create(seed).nextDouble() > 0.5 ? CellSymbol.CROSS : CellSymbol.NAUGHT;
+        // Both sides play from the same seed, so the game may be replayed from it
+        GameSession session = newSession(gameId, pacingOpt.orElse(defaultPacing));
+        synchronized (session) {
+            replaceSession(session);
+            init(session, ourSymbol, seed, random);
+            if (ourSymbol == CellSymbol.CROSS) {
+                log.info("We move first");
+                // delay here doesn't matter ant may as well be 0. Their deadline for the move starts about now.
+                long giveUpAtNanos = giveUpAt(System.nanoTime());
+                scheduleMove(session, () -> makeMove(session, GameState::makeFirstMove, giveUpAtNanos),
+                        TimeUnit.MILLISECONDS.toNanos(session.getPacer().nextDelayMillis()));
+            } else {
+                awaitTheirMove(session, session.getState().getMoveCounter());
+            }
         }
         return ourSymbol;
     }
 
-    public synchronized void makeMove(MoveResponse move) {
+    /*
+    nextMove is applied to the game state only under the session lock, as the state isn't thread safe,
+    but the lock is not held while we wait for their answer: a reset or a stray request of the game doesn't wait for it.
+    If they are overloaded, the same move is sent again after their Retry-After, but not past giveUpAtNanos:
+    by then they would have timed us out anyway
+     */
+    private void makeMove(GameSession session, Function<GameState, MoveResponse> nextMove, long giveUpAtNanos) {
+        MoveResponse move;
+        synchronized (session) {
+            if (session.isStopped())
+                return; // reset or replaced while the move waited for its turn
+            try {
+                move = nextMove.apply(session.getState());
+            } catch (Exception e) {
+                fail(session);
+                throw new IllegalStateException("Failed to make move", e);
+            }
+        }
+
+        long sentAt = System.nanoTime();
+        Optional<MoveResponse> moveResponse;
         try {
-            MoveResponse moveResponse = client.sendMove(move);
-            checkedMakeMove(moveResponse,
-                    (mr) -> scheduler.schedule(() ->
-                            makeMove(stateBean.makeMove(mr.board())), moveDelay.toMillis(), TimeUnit.MILLISECONDS)
-            );
+            moveResponse = client.sendMove(session.getGameId(), move);
+        } catch (PeerOverloadedException e) {
+            retryOrFail(session, move, giveUpAtNanos, e);
+            return;
         } catch (Exception e) {
-            stateBean.setGameStatus(GameStatus.DETECTED_ERROR);
+            synchronized (session) {
+                if (session.isStopped())
+                    return; // the send was interrupted by a reset
+                fail(session);
+            }
             throw new IllegalStateException("Failed to make move", e);
         }
+        long answeredAt = System.nanoTime(); // their deadline for our next move starts about now
+        peerLiveness.heard();
+
+        synchronized (session) {
+            if (session.isStopped())
+                return; // reset or replaced while we waited for their answer
+            session.recordMoveLatency(answeredAt - sentAt);
+            try {
+                if (moveResponse.isEmpty()) {
+                    // They have nothing to answer only to our final move
+                    if (session.getStatus() == GameStatus.WAITING)
+                        throw new IllegalStateException("No move in response");
+                    finished(session);
+                    return;
+                }
+                checkedMakeMove(session, moveResponse.get(),
+                        (mr) -> {
+                            scheduleMove(session, () -> makeMove(session, state -> state.makeMove(mr.board()),
+                                            giveUpAt(answeredAt)),
+                                    TimeUnit.MILLISECONDS.toNanos(session.getPacer().nextDelayMillis()));
+                            return mr;
+                        }
+                );
+            } catch (Exception e) {
+                fail(session);
+                throw new IllegalStateException("Failed to make move", e);
+            }
+        }
     }
 
-    public synchronized ResponseEntity<?> gotMove(MoveResponse move) {
-        if (stateBean == null) {
-            log.info("They move first");
-            stateBean = appContext.getBean(GameStateBean.class);
-            scheduler = Executors.newScheduledThreadPool(1);
-            init(CellSymbol.NAUGHT, seed());
+    private void retryOrFail(GameSession session, MoveResponse move, long giveUpAtNanos, PeerOverloadedException e) {
+        synchronized (session) {
+            if (session.isStopped())
+                return;
+            long retryAfterNanos = e.getRetryAfter().toNanos();
+            if (System.nanoTime() + retryAfterNanos < giveUpAtNanos) {
+                log.info("They are overloaded, retrying the move in {} ms", e.getRetryAfter().toMillis());
+                scheduleMove(session, () -> makeMove(session, state -> move, giveUpAtNanos), retryAfterNanos);
+                return;
+            }
+            fail(session);
         }
+        throw e;
+    }
+
+    // Under the session lock
+    private void fail(GameSession session) {
+        session.getState().setGameStatus(GameStatus.DETECTED_ERROR);
+        session.stop();
+        finished(session);
+    }
+
+    // Their move timeout started at answeredAtNanos; the margin is for the last attempt's round trip
+    private long giveUpAt(long answeredAtNanos) {
+        return answeredAtNanos + moveTimeout.toNanos() - pacingMargin.toNanos();
+    }
 
-        Optional<GameBoard> fromHistory = stateBean.getBoardFromHistory(move.board());
-        if (fromHistory.isPresent()) {
-            return ResponseEntity.ok(new MoveResponse(fromHistory.get(), GameStatus.WAITING));
+    // The sending task replaces the scheduled one as the pending move, so stop() cancels either
+    private void scheduleMove(GameSession session, Runnable move, long delayNanos) {
+        session.setPendingMove(moveScheduler.schedule(() -> send(session, move), delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    // All senders busy and the queue full means they answer slower than we play, more games would only wait longer
+    private void send(GameSession session, Runnable move) {
+        try {
+            session.setPendingMove(moveSenders.submit(move));
+        } catch (RejectedExecutionException e) {
+            synchronized (session) {
+                if (session.isStopped())
+                    return;
+                log.error("Game {} failed, {} moves are being sent already", session.getGameId(),
+                        moveSenders.getActiveCount() + moveSenders.getQueue().size());
+                fail(session);
+            }
         }
-        return checkedMakeMove(move, this::processMoveRequest)
-                .orElseGet(() -> ResponseEntity.ok().build());
     }
 
-    public synchronized void reset() {
-        if (scheduler != null) {
-            scheduler.shutdownNow();
+    /*
+    Only for a game negotiated with /symbol or started with /run here: a late move of a game that was reset
+    or evicted must not start a new one
+     */
+    public ResponseEntity<?> gotMove(String gameId, MoveResponse move) {
+        peerLiveness.heard();
+        GameSession session = sessions.get(gameId);
+        if (session == null) {
+            return finishedGames.containsKey(gameId)
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).body("game is over")
+                    : ResponseEntity.status(HttpStatus.NOT_FOUND).body("no such game");
+        }
+
+        synchronized (session) {
+            if (session.isReleased())
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("game was reset"); // while we waited for the lock
+            Optional<GameBoard> fromHistory = session.getState().getBoardFromHistory(move.board());
+            if (fromHistory.isPresent()) {
+                return ResponseEntity.ok(new MoveResponse(fromHistory.get(), GameStatus.WAITING));
+            }
+            return checkedMakeMove(session, move, (m) -> processMoveRequest(session, m))
+                    .orElseGet(() -> ResponseEntity.ok().build());
         }
-        scheduler = Executors.newScheduledThreadPool(1);
     }
 
-    private Pair<CellSymbol, Integer> negotiateSymbol(Optional<Integer> seedOpt) {
+    public void reset(String gameId) {
+        GameSession session = sessions.remove(gameId);
+        if (session != null) {
+            retire(session);
+        }
+    }
+
+    private Pair<CellSymbol, Integer> negotiateSymbol(GameSession session, Optional<Integer> seedOpt,
+                                                      RandomMode random) {
         int seed = seedOpt.orElseGet(() -> client.seed());
         log.info("Got seed {}", seed);
-        CellSymbol theirSymbol = client.negotiateSymbol(seed);
+        CellSymbol theirSymbol = client.negotiateSymbol(session.getGameId(), seed, session.getPacer().getPacing(),
+                random);
         CellSymbol ourSymbol = theirSymbol == CellSymbol.CROSS ? CellSymbol.NAUGHT : CellSymbol.CROSS;
         return new Pair<>(ourSymbol, seed);
     }
 
-    private void init(CellSymbol ourSymbol, int seed) {
-        stateBean.setMySymbol(ourSymbol);
-        stateBean.init(ourSymbol, seed);
+    private static ScheduledThreadPoolExecutor newDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true); // most deadlines are cancelled, don't keep them in the queue
+        return timer;
+    }
+
+    private GameSession newSession(String gameId, MovePacing pacing) {
+        log.info("Game {} with move pacing {}", gameId, pacing);
+        GameState state = useFlatGameStore ? flatGameStore.allocate() : appContext.getBean(GameStateBean.class);
+        return new GameSession(gameId, state,
+                new MovePacer(pacing, moveDelay, moveTimeout, pacingMargin), peerLiveness);
+    }
+
+    private void replaceSession(GameSession session) {
+        GameSession previous = sessions.put(session.getGameId(), session);
+        if (previous != null) {
+            retire(previous);
+        }
+    }
+
+    /*
+    For a session already removed from the map. Under its lock, so moves and deadlines of the game in progress
+    either finish before or see it released.
+     */
+    private void retire(GameSession session) {
+        synchronized (session) {
+            if (session.isReleased())
+                return;
+            session.stop();
+            finished(session);
+            release(session);
+        }
+    }
+
+    // Under the session lock
+    private void release(GameSession session) {
+        session.markReleased();
+        if (useFlatGameStore) {
+            flatGameStore.release(session.getState());
+        }
+    }
+
+    private void finished(GameSession session) {
+        if (session.markFinished()) {
+            if (exporter.isEnabled()) {
+                exporter.export(session.toRecord());
+            }
+            // Kept for a while: they may resend their last move, and /status shows the board
+            deadlineTimer.schedule(() -> evict(session), finishedGameTtl.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+    The epoch change failed games with the dead peer without touching them, this stores the failure, stops and
+    exports them, without waiting for their deadlines, and also the ones which have none (our move pending)
+     */
+    private void finishFailedGames() {
+        for (GameSession session : sessions.values()) {
+            synchronized (session) {
+                if (!session.isReleased() && session.getStatus() == GameStatus.DETECTED_ERROR) {
+                    fail(session);
+                }
+            }
+        }
+    }
+
+    private void evict(GameSession session) {
+        synchronized (session) {
+            // Unless reset or replaced by a new game meanwhile, then that did the cleanup
+            if (sessions.remove(session.getGameId(), session) && !session.isReleased()) {
+                finishedGames.put(session.getGameId(), describe(session));
+                release(session);
+            }
+        }
+    }
+
+    private static String describe(GameSession session) {
+        return "Status: %s\n Board:\n%s".formatted(session.getStatus().name(), session.getState().getPreviousBoard());
+    }
+
+    private void init(GameSession session, CellSymbol ourSymbol, int seed, RandomMode random) {
+        session.getState().init(ourSymbol, seed, random);
         log.info("init done with symbol {}", ourSymbol);
     }
 
-    private <T> Optional<T> checkedMakeMove(MoveResponse moveResponse, Function<MoveResponse, T> moveAction) {
+    private <T> Optional<T> checkedMakeMove(GameSession session, MoveResponse moveResponse,
+                                            Function<MoveResponse, T> moveAction) {
+        GameState state = session.getState();
         GameStatus newStatus = moveResponse.newStatus();
-        if (stateBean.getGameStatus() != GameStatus.WAITING) {
-            log.info("We have status {} and not waiting their move", stateBean.getGameStatus());
+        GameStatus status = session.getStatus();
+        if (status != GameStatus.WAITING) {
+            log.info("We have status {} and not waiting their move", status);
             return Optional.empty();
         }
+        session.cancelDeadline(); // their move is here
         return switch (newStatus) {
             case WON -> {
-                stateBean.setGameStatus(GameStatus.LOST);
-                log.info("We lost (we moved {}): \n{}", stateBean.getMySymbol(), moveResponse.board());
-                scheduler.shutdownNow();
+                state.recordTheirMove(moveResponse.board());
+                state.setGameStatus(GameStatus.LOST);
+                log.info("We lost (we moved {}): \n{}", state.getMySymbol(), moveResponse.board());
+                session.stop();
+                finished(session);
                 yield Optional.empty();
             }
             case DRAW -> {
-                stateBean.setGameStatus(GameStatus.DRAW);
+                state.recordTheirMove(moveResponse.board());
+                state.setGameStatus(GameStatus.DRAW);
                 log.info("Draw: \n{}", moveResponse.board());
-                scheduler.shutdownNow();
+                session.stop();
+                finished(session);
                 yield Optional.empty();
             }
             case WAITING -> {
                 log.info("They wait our move now");
-                stateBean.setGameStatus(GameStatus.THINKING);
+                state.setGameStatus(GameStatus.THINKING);
                 yield Optional.of(moveAction.apply(moveResponse));
             }
             case RECEIVED_ERROR -> {
                 log.info("Received error (see log entry above)");
-                stateBean.setGameStatus(GameStatus.RECEIVED_ERROR);
-                scheduler.shutdownNow();
+                state.setGameStatus(GameStatus.RECEIVED_ERROR);
+                session.stop();
+                finished(session);
                 yield Optional.empty();
             }
             default -> throw new IllegalStateException("Status not supported " + newStatus);
         };
     }
 
-    private ResponseEntity<?> processMoveRequest(MoveResponse move) {
-        ResponseEntity<?> response = validateAndMoveToResponse(move);
-        int moveCounter = stateBean.incrementAndGetMoveCounter();
-        scheduler.schedule(() -> {
-            if (stateBean != null && stateBean.getMoveCounter() == moveCounter) {
-                stateBean.setGameStatus(GameStatus.DETECTED_ERROR);
-                log.error("Their move timeout after {} milliseconds", moveTimeout.toMillis());
-            }
-        }, moveTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    private ResponseEntity<?> processMoveRequest(GameSession session, MoveResponse move) {
+        GameState state = session.getState();
+        ResponseEntity<?> response = validateAndMoveToResponse(state, move);
+        int moveCounter = state.incrementAndGetMoveCounter();
+        if (state.getGameStatus() != GameStatus.WAITING) {
+            finished(session); // we won, drew or rejected their move - nothing to wait for
+            return response;
+        }
+        awaitTheirMove(session, moveCounter);
         return response;
     }
 
-    private ResponseEntity<?> validateAndMoveToResponse(MoveResponse move) {
-        Optional<String> validationError = stateBean.validateMove(move.board());
+    /*
+    Under the session lock. Fails the game unless their move comes in move_timeout, from now on, the first one too:
+    a game whose first move never comes would otherwise wait forever, never finished, exported or evicted.
+     */
+    private void awaitTheirMove(GameSession session, int moveCounter) {
+        GameState state = session.getState();
+        session.setDeadline(deadlineTimer.schedule(() -> {
+            synchronized (session) {
+                if (session.isReleased() || state.getMoveCounter() != moveCounter)
+                    return;
+                if (session.getStatus() == GameStatus.WAITING) {
+                    state.setGameStatus(GameStatus.DETECTED_ERROR);
+                    log.error("Their move timeout after {} milliseconds, peer is {}",
+                            moveTimeout.toMillis(), peerLiveness.getState());
+                }
+                finished(session); // also when it failed because the peer was declared dead meanwhile
+            }
+        }, moveTimeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private ResponseEntity<?> validateAndMoveToResponse(GameState state, MoveResponse move) {
+        Optional<String> validationError = state.validateMove(move.board());
         if (validationError.isPresent()) {
-            stateBean.setGameStatus(GameStatus.DETECTED_ERROR);
+            state.setGameStatus(GameStatus.DETECTED_ERROR);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(validationError.get());
         }
 
-        MoveResponse moveResult = stateBean.makeMove(move.board());
+        MoveResponse moveResult = state.makeMove(move.board());
         return ResponseEntity.ok(moveResult);
     }
 }
@@ -0,0 +1,122 @@
+package com.norgorn.service;
+
+import com.norgorn.model.GameRecord;
+import com.norgorn.model.GameStatus;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+Everything one game needs on this instance. Games are independent, so each one is locked separately.
+Scheduled tasks run on executors shared by all games, the session only keeps their handles to cancel them.
+ */
+public class GameSession {
+
+    @Getter
+    private final String gameId;
+    @Getter
+    private final GameState state;
+    @Getter
+    private final MovePacer pacer;
+
+    private final PeerLiveness peerLiveness;
+    private final int peerEpoch;
+
+    private final AtomicReference<Future<?>> pendingMove = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> deadline = new AtomicReference<>();
+    @Getter
+    private volatile boolean stopped;
+    // Its state went back to the store, only the session lock holder may set it
+    @Getter
+    private volatile boolean released;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    // Round trip of every move we sent, including their move calculation
+    @Getter
+    private final List<Long> moveLatenciesNanos = new CopyOnWriteArrayList<>();
+
+    public GameSession(String gameId, GameState state, MovePacer pacer, PeerLiveness peerLiveness) {
+        this.gameId = gameId;
+        this.state = state;
+        this.pacer = pacer;
+        this.peerLiveness = peerLiveness;
+        this.peerEpoch = peerLiveness.getEpoch();
+    }
+
+    /*
+    Game status, unless the peer died since the game started - then the game is failed, no matter what it was doing.
+    Only reads, so it may be called without the session lock; GameProcessor stores the failure under the lock.
+     */
+    public GameStatus getStatus() {
+        GameStatus status = state.getGameStatus();
+        if ((status == GameStatus.WAITING || status == GameStatus.THINKING) && peerLiveness.getEpoch() != peerEpoch)
+            return GameStatus.DETECTED_ERROR;
+        return status;
+    }
+
+    /*
+    True only for the first call, so the game is reported once however many ways it ended
+     */
+    public boolean markFinished() {
+        return finished.compareAndSet(false, true);
+    }
+
+    public GameRecord toRecord() {
+        int[] latenciesMicros = moveLatenciesNanos.stream()
+                .limit(Byte.MAX_VALUE)
+                .mapToInt(nanos -> (int) Math.min(Integer.MAX_VALUE, nanos / 1_000))
+                .toArray();
+        return new GameRecord(gameId, startedAtMillis, System.currentTimeMillis(), state.getSeed(),
+                state.getRandomMode(), state.getMySymbol(), getStatus(), state.getMovesCount(), state.getPackedMoves(),
+                latenciesMicros);
+    }
+
+    public void recordMoveLatency(long nanos) {
+        moveLatenciesNanos.add(nanos);
+        pacer.recordRoundTrip(nanos / 1_000_000);
+    }
+
+    public void setPendingMove(Future<?> move) {
+        pendingMove.set(move);
+        if (stopped) {
+            move.cancel(true);
+        }
+    }
+
+    /*
+    Replaces the previous deadline, if any: their move came in time
+     */
+    public void setDeadline(ScheduledFuture<?> newDeadline) {
+        cancel(deadline.getAndSet(newDeadline), false);
+        if (stopped) {
+            newDeadline.cancel(false);
+        }
+    }
+
+    public void cancelDeadline() {
+        cancel(deadline.getAndSet(null), false);
+    }
+
+    public void stop() {
+        stopped = true;
+        cancel(pendingMove.getAndSet(null), true);
+        cancelDeadline();
+    }
+
+    public void markReleased() {
+        stop();
+        released = true;
+    }
+
+    private static void cancel(Future<?> task, boolean interrupt) {
+        if (task != null) {
+            task.cancel(interrupt);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.norgorn.service;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameBoard;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.MoveResponse;
+import com.norgorn.model.RandomMode;
+
+import java.util.Optional;
+
+/*
+State and moves of one game on this instance.
+GameStateBean keeps it in objects, FlatGameStore in fixed-size slots of a primitive arena.
+ */
+public interface GameState {
+
+    void init(CellSymbol mySymbol, int seed, RandomMode randomMode);
+
+    default void init(CellSymbol mySymbol, int seed) {
+        init(mySymbol, seed, RandomMode.LEGACY);
+    }
+
+    CellSymbol getMySymbol();
+
+    int getSeed();
+
+    RandomMode getRandomMode();
+
+    GameStatus getGameStatus();
+
+    void setGameStatus(GameStatus gameStatus);
+
+    // Our last board
+    GameBoard getPreviousBoard();
+
+    Optional<GameBoard> getBoardFromHistory(GameBoard incomingBoard);
+
+    Optional<String> validateMove(GameBoard currentBoard);
+
+    MoveResponse makeFirstMove();
+
+    MoveResponse makeMove(GameBoard currentBoard);
+
+    void recordTheirMove(GameBoard currentBoard);
+
+    int getMoveCounter();
+
+    int incrementAndGetMoveCounter();
+
+    // Taken cells (row * 3 + column) in order, 4 bits each, the first move in the lowest bits
+    long getPackedMoves();
+
+    int getMovesCount();
+}
@@ -10,14 +10,15 @@ import org.springframework.stereotype.Component;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 @Component
 @Scope("prototype")
 @Log4j2
-public class GameStateBean {
+public class GameStateBean implements GameState {
 
-    private static final int ROWS_COUNT = 3;
-    private static final int COLS_COUNT = 3;
+    static final int ROWS_COUNT = 3;
+    static final int COLS_COUNT = 3;
 
     @Getter
     @Setter
@@ -33,43 +34,83 @@ public class GameStateBean {
 
     private final Map<String, HistoryItem> history = new ConcurrentHashMap<>();
 
-    private Random random;
+    // Only used under the game session lock: GameProcessor makes every move inside synchronized (session)
+    private RandomGenerator random;
     private final AtomicInteger moveCounter = new AtomicInteger(0);
 
-    public void init(CellSymbol mySymbol, int seed) {
+    @Getter
+    private int seed;
+    @Getter
+    private RandomMode randomMode;
+
+    @Getter
+    private long packedMoves;
+    @Getter
+    private int movesCount;
+
+    @Override
+    public void init(CellSymbol mySymbol, int seed, RandomMode randomMode) {
         this.mySymbol = mySymbol;
-        random = new Random(seed);
+        this.seed = seed;
+        this.randomMode = randomMode;
+        random = randomMode.create(seed);
     }
 
+    @Override
     public Optional<GameBoard> getBoardFromHistory(GameBoard incomingBoard) {
         return Optional.ofNullable(history.get(incomingBoard.toString()))
                 .map(HistoryItem::outgoingBoard);
     }
 
+    @Override
     public Optional<String> validateMove(GameBoard currentBoard) {
         return validateMove(previousBoard, currentBoard);
     }
 
+    @Override
     public MoveResponse makeFirstMove() {
         return makeMove(initEmptyBoard());
     }
 
+    @Override
     public MoveResponse makeMove(GameBoard currentBoard) {
+        recordTheirMove(currentBoard);
         MoveResponse newBoard = makeMoveInternal(currentBoard);
         log.info("Moving from \n{}\n To \n{}\nWith status {}", currentBoard, newBoard.board(), newBoard.newStatus());
         previousBoard = newBoard.board();
         return newBoard;
     }
 
+    /*
+    Their move is the difference between our previous board and the current one
+     */
+    @Override
+    public void recordTheirMove(GameBoard currentBoard) {
+        for (int rowNum = 0; rowNum < ROWS_COUNT; rowNum++) {
+            for (int colNum = 0; colNum < COLS_COUNT; colNum++) {
+                if (previousBoard.rows().get(rowNum).get(colNum) == CellSymbol.EMPTY
+                        && currentBoard.rows().get(rowNum).get(colNum) != CellSymbol.EMPTY) {
+                    recordMove(rowNum, colNum);
+                }
+            }
+        }
+    }
+
+    @Override
     public int getMoveCounter() {
         return moveCounter.get();
     }
 
+    @Override
     public int incrementAndGetMoveCounter() {
         return moveCounter.incrementAndGet();
     }
 
     Optional<String> validateMove(GameBoard previousBoard, GameBoard currentBoard) {
+        return validateMove(mySymbol, previousBoard, currentBoard);
+    }
+
+    static Optional<String> validateMove(CellSymbol mySymbol, GameBoard previousBoard, GameBoard currentBoard) {
         if (currentBoard.rows().size() != ROWS_COUNT
                 || currentBoard.rows().stream().anyMatch(r -> r.size() != COLS_COUNT)) {
             return Optional.of("invalid board size");
@@ -118,9 +159,10 @@ public class GameStateBean {
         }
 
         if (!emptySlots.isEmpty()) {
-            int slotNum = random.nextInt(emptySlots.size()); // cache Random
+            int slotNum = random.nextInt(emptySlots.size());
             Slot slot = emptySlots.get(slotNum);
             newBoardValues.get(slot.row).set(slot.column, mySymbol);
+            recordMove(slot.row, slot.column);
         }
 
         if (emptySlots.isEmpty())
@@ -135,7 +177,14 @@ public class GameStateBean {
         return moveResponse;
     }
 
-    private static GameBoard initEmptyBoard() {
+    private void recordMove(int rowNum, int colNum) {
+        if (movesCount < Long.SIZE / 4) {
+            packedMoves |= (long) (rowNum * COLS_COUNT + colNum) << (4 * movesCount);
+            movesCount++;
+        }
+    }
+
+    static GameBoard initEmptyBoard() {
         List<List<CellSymbol>> emptyRows = new ArrayList<>();
         for (int i = 0; i < ROWS_COUNT; i++) {
             List<CellSymbol> row = new ArrayList<>(COLS_COUNT);
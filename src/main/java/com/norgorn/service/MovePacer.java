@@ -0,0 +1,55 @@
+package com.norgorn.service;
+
+import com.norgorn.model.MovePacing;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/*
+Per game, not a bean - lives as long as the game does.
+Round trip estimation is the same as TCP uses for retransmission timeout (RFC 6298): smoothed RTT plus 4 deviations.
+ */
+public class MovePacer {
+
+    private static final double RTT_ALPHA = 0.125;
+    private static final double RTT_BETA = 0.25;
+
+    @Getter
+    private final MovePacing pacing;
+    private final long moveDelayMillis;
+    private final long moveTimeoutMillis;
+    private final long marginMillis;
+
+    private double smoothedRttMillis = -1;
+    private double rttVarianceMillis;
+
+    public MovePacer(MovePacing pacing, Duration moveDelay, Duration moveTimeout, Duration margin) {
+        this.pacing = pacing;
+        this.moveDelayMillis = moveDelay.toMillis();
+        this.moveTimeoutMillis = moveTimeout.toMillis();
+        this.marginMillis = margin.toMillis();
+    }
+
+    public synchronized void recordRoundTrip(long rttMillis) {
+        if (smoothedRttMillis < 0) {
+            smoothedRttMillis = rttMillis;
+            rttVarianceMillis = rttMillis / 2.0;
+        } else {
+            rttVarianceMillis = (1 - RTT_BETA) * rttVarianceMillis + RTT_BETA * Math.abs(smoothedRttMillis - rttMillis);
+            smoothedRttMillis = (1 - RTT_ALPHA) * smoothedRttMillis + RTT_ALPHA * rttMillis;
+        }
+    }
+
+    public synchronized long nextDelayMillis() {
+        return switch (pacing) {
+            case NONE -> 0;
+            case FIXED -> moveDelayMillis;
+            case ADAPTIVE -> {
+                // Their timeout starts when they answer, so our delay plus one round trip must fit into it
+                long rttBound = smoothedRttMillis < 0 ? 0 : (long) Math.ceil(smoothedRttMillis + 4 * rttVarianceMillis);
+                long budget = moveTimeoutMillis - marginMillis - rttBound;
+                yield Math.max(0, Math.min(moveDelayMillis, budget));
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.norgorn.service;
+
+import com.norgorn.model.PeerState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/*
+Liveness of the other instance (there is only one peer per instance).
+Any answer from them counts, heartbeats only fill the silence between moves.
+Silence counts only after the first answer, so an instance started before its peer doesn't declare it dead.
+When they are declared dead the epoch changes, which fails every game started in the previous epoch at once,
+see GameSession.getStatus(). Death listeners then do whatever the failed games still need, e.g. export.
+ */
+@Log4j2
+@Service
+public class PeerLiveness {
+
+    @Autowired
+    GameClient client;
+
+    @Value("${app.heartbeat_interval}")
+    Duration heartbeatInterval;
+
+    @Value("${app.peer_dead_after}")
+    Duration deadAfter;
+
+    LongSupplier clock = System::nanoTime; // replaced in tests
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger epoch = new AtomicInteger();
+    private final List<Runnable> deathListeners = new CopyOnWriteArrayList<>();
+
+    private volatile long lastHeardNanos;
+    @Getter
+    private volatile PeerState state = PeerState.UNKNOWN;
+
+    @PostConstruct
+    void start() {
+        heartbeats.scheduleWithFixedDelay(this::beat,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+    }
+
+    public int getEpoch() {
+        return epoch.get();
+    }
+
+    /*
+    Called on the heartbeat thread, should not block
+     */
+    public void onDeath(Runnable listener) {
+        deathListeners.add(listener);
+    }
+
+    public void heard() {
+        lastHeardNanos = clock.getAsLong();
+        if (state != PeerState.ALIVE) {
+            synchronized (this) {
+                if (state != PeerState.ALIVE) {
+                    log.info(state == PeerState.UNKNOWN ? "Peer is up" : "Peer is alive again");
+                    state = PeerState.ALIVE;
+                }
+            }
+        }
+    }
+
+    void beat() {
+        if (client.heartbeat(heartbeatInterval)) {
+            heard();
+            return;
+        }
+        if (state == PeerState.UNKNOWN)
+            return;
+        long silenceNanos = clock.getAsLong() - lastHeardNanos;
+        boolean died = false;
+        synchronized (this) {
+            if (silenceNanos > deadAfter.toNanos()) {
+                if (state != PeerState.DEAD) {
+                    state = PeerState.DEAD;
+                    epoch.incrementAndGet();
+                    died = true;
+                    log.error("Peer is dead after {} ms of silence, all games with it failed", silenceNanos / 1_000_000);
+                }
+            } else if (silenceNanos > 2 * heartbeatInterval.toNanos() && state == PeerState.ALIVE) {
+                state = PeerState.SUSPECT;
+                log.warn("Peer missed heartbeats");
+            }
+        }
+        if (died) {
+            deathListeners.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.norgorn.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/*
+They refused the request before doing anything with it, so it's safe to send it again after retryAfter
+ */
+@Getter
+public class PeerOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PeerOverloadedException(Duration retryAfter) {
+        super("Peer is overloaded, retry after " + retryAfter.toMillis() + " ms");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,246 @@
+package com.norgorn.load;
+
+import com.norgorn.App;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.MovePacing;
+import com.norgorn.model.RandomMode;
+import com.norgorn.service.AdmissionControl;
+import com.norgorn.service.GameClient;
+import com.norgorn.service.GameProcessor;
+import com.norgorn.service.GameSession;
+import okhttp3.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Boots two instances in this JVM on random ports and plays games between them through the REST endpoints.
+Not a unit test, run it with:
+ mvn -Pload test-compile exec:java -Dload.games=5000 -Dload.concurrency=32 -Dload.pacing=NONE -Dload.random=SPLITTABLE
+ */
+public class LoadGenerator {
+
+    private static final Set<GameStatus> FINISHED = EnumSet.of(GameStatus.WON, GameStatus.LOST, GameStatus.DRAW);
+    private static final Set<GameStatus> FAILED = EnumSet.of(GameStatus.DETECTED_ERROR, GameStatus.RECEIVED_ERROR);
+    private static final Set<GameStatus> PLAYING = EnumSet.of(GameStatus.WAITING, GameStatus.THINKING);
+    // A side still playing ends by its move deadline, app.move_timeout
+    private static final long OVER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Node first;
+    private final Node second;
+    private final MovePacing pacing;
+    private final RandomMode random;
+    private final long gameTimeoutNanos;
+    private final OkHttpClient http = new OkHttpClient();
+
+    private final AtomicInteger gameIds = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int games = Integer.getInteger("load.games", 2000);
+        int warmupGames = Integer.getInteger("load.warmup", 200);
+        int concurrency = Integer.getInteger("load.concurrency", 16);
+        MovePacing pacing = MovePacing.valueOf(System.getProperty("load.pacing", MovePacing.NONE.name()));
+        RandomMode random = RandomMode.valueOf(System.getProperty("load.random", RandomMode.SPLITTABLE.name()));
+        long gameTimeoutMillis = Long.getLong("load.game_timeout_ms", 10_000);
+
+        try (ConfigurableApplicationContext firstContext = start();
+             ConfigurableApplicationContext secondContext = start()) {
+            Node first = new Node(firstContext);
+            Node second = new Node(secondContext);
+            first.context.getBean(GameClient.class).setPeerPort(second.port);
+            second.context.getBean(GameClient.class).setPeerPort(first.port);
+            System.out.printf("Instances on ports %d and %d, pacing %s, random %s%n",
+                    first.port, second.port, pacing, random);
+
+            LoadGenerator generator = new LoadGenerator(first, second, pacing, random, gameTimeoutMillis);
+            generator.drive(warmupGames, concurrency);
+            generator.drive(games, concurrency).print();
+            first.printAdmission();
+            second.printAdmission();
+        }
+        System.exit(0);
+    }
+
+    public LoadGenerator(Node first, Node second, MovePacing pacing, RandomMode random, long gameTimeoutMillis) {
+        this.first = first;
+        this.second = second;
+        this.pacing = pacing;
+        this.random = random;
+        this.gameTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gameTimeoutMillis);
+    }
+
+    public Report drive(int games, int concurrency) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+
+        Queue<Long> moveLatencies = new ConcurrentLinkedQueue<>();
+        Map<Outcome, AtomicInteger> outcomes = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new AtomicInteger());
+        }
+
+        ExecutorService drivers = Executors.newFixedThreadPool(concurrency);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            drivers.execute(() -> outcomes.get(playGame(moveLatencies)).incrementAndGet());
+        }
+        drivers.shutdown();
+        drivers.awaitTermination(1, TimeUnit.HOURS);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        long[] latencies = moveLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Report(games, concurrency, elapsedNanos, outcomes, latencies,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore,
+                threads.getThreadCount(), threads.getPeakThreadCount());
+    }
+
+    private Outcome playGame(Queue<Long> moveLatencies) {
+        int id = gameIds.incrementAndGet();
+        String gameId = String.valueOf(id);
+        // Alternate who starts, so both instances drive games
+        Node starter = id % 2 == 0 ? first : second;
+        long deadline = System.nanoTime() + gameTimeoutNanos;
+        try {
+            int code = starter.run(http, gameId, pacing, random);
+            if (code == 503)
+                return Outcome.REJECTED;
+            if (code != 200)
+                return Outcome.RUN_FAILED;
+
+            while (true) {
+                Optional<GameStatus> firstStatus = first.status(gameId);
+                Optional<GameStatus> secondStatus = second.status(gameId);
+                if (firstStatus.filter(FAILED::contains).isPresent() || secondStatus.filter(FAILED::contains).isPresent())
+                    return Outcome.ERROR;
+                if (firstStatus.filter(FINISHED::contains).isPresent() && secondStatus.filter(FINISHED::contains).isPresent()) {
+                    moveLatencies.addAll(first.moveLatencies(gameId));
+                    moveLatencies.addAll(second.moveLatencies(gameId));
+                    return Outcome.FINISHED;
+                }
+                if (System.nanoTime() > deadline)
+                    return Outcome.TIMEOUT;
+                LockSupport.parkNanos(100_000);
+            }
+        } catch (Exception e) {
+            return Outcome.RUN_FAILED;
+        } finally {
+            // Finished games would stay in memory for app.finished_game_ttl, no need for that here.
+            // But not while a side still plays, e.g. after the other failed: its move would find no game.
+            awaitOver(gameId);
+            first.processor.reset(gameId);
+            second.processor.reset(gameId);
+        }
+    }
+
+    private void awaitOver(String gameId) {
+        long giveUpAt = System.nanoTime() + OVER_TIMEOUT_NANOS;
+        while ((first.isPlaying(gameId) || second.isPlaying(gameId)) && System.nanoTime() < giveUpAt) {
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(App.class)
+                .bannerMode(Banner.Mode.OFF)
+                // Command line args, properties() are only defaults and application.properties has server.port
+                .run("--server.port=0", "--logging.level.com.norgorn=WARN", "--app.print_beans=false");
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    enum Outcome {
+        FINISHED, // both sides agree the game is over
+        ERROR, // DETECTED_ERROR or RECEIVED_ERROR on either side, this includes move timeouts
+        TIMEOUT, // game did not end in load.game_timeout_ms
+        REJECTED, // /run got 503 from admission control
+        RUN_FAILED // /run failed for any other reason
+    }
+
+    static class Node {
+        final ConfigurableApplicationContext context;
+        final GameProcessor processor;
+        final int port;
+
+        Node(ConfigurableApplicationContext context) {
+            this.context = context;
+            this.processor = context.getBean(GameProcessor.class);
+            this.port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        }
+
+        int run(OkHttpClient http, String gameId, MovePacing pacing, RandomMode random) throws Exception {
+            HttpUrl url = new HttpUrl.Builder()
+                    .scheme("http").host("localhost").port(port)
+                    .addPathSegment("run")
+                    .addQueryParameter("game", gameId)
+                    .addQueryParameter("pacing", pacing.name())
+                    .addQueryParameter("random", random.name())
+                    .build();
+            Request request = new Request.Builder().url(url).post(RequestBody.create(new byte[0])).build();
+            try (Response response = http.newCall(request).execute()) {
+                return response.code();
+            }
+        }
+
+        Optional<GameStatus> status(String gameId) {
+            return processor.getSession(gameId).map(GameSession::getStatus);
+        }
+
+        boolean isPlaying(String gameId) {
+            return status(gameId).filter(PLAYING::contains).isPresent();
+        }
+
+        void printAdmission() {
+            System.out.printf("Admission on %d: %s%n", port, context.getBean(AdmissionControl.class).getStats());
+        }
+
+        List<Long> moveLatencies(String gameId) {
+            return processor.getSession(gameId).map(GameSession::getMoveLatenciesNanos).orElse(List.of());
+        }
+    }
+
+    record Report(int games, int concurrency, long elapsedNanos, Map<Outcome, AtomicInteger> outcomes,
+                  long[] sortedMoveLatenciesNanos, long gcCount, long gcMillis, int threads, int peakThreads) {
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("Games: %d with concurrency %d in %.2f s%n", games, concurrency, seconds);
+            System.out.printf("Throughput: %.1f games/s%n", outcomes.get(Outcome.FINISHED).get() / seconds);
+            System.out.printf("Move latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms (%d moves)%n",
+                    percentileMillis(0.50), percentileMillis(0.99), percentileMillis(1.0), sortedMoveLatenciesNanos.length);
+            for (Outcome outcome : Outcome.values()) {
+                int count = outcomes.get(outcome).get();
+                System.out.printf("%s: %d (%.2f%%)%n", outcome, count, 100.0 * count / games);
+            }
+            System.out.printf("GC: %d collections, %d ms%n", gcCount, gcMillis);
+            System.out.printf("Threads: %d, peak %d%n", threads, peakThreads);
+        }
+
+        private double percentileMillis(double percentile) {
+            if (sortedMoveLatenciesNanos.length == 0)
+                return 0;
+            int index = (int) Math.ceil(percentile * sortedMoveLatenciesNanos.length) - 1;
+            return sortedMoveLatenciesNanos[Math.max(0, index)] / 1e6;
+        }
+    }
+}
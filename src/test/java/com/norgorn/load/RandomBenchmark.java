@@ -0,0 +1,111 @@
+package com.norgorn.load;
+
+import com.norgorn.model.RandomMode;
+import com.norgorn.replay.GameReplay;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/*
+Random moves under parallel self-play: every thread plays whole games between two GameStateBeans, no HTTP,
+once per random mode. Every game has a generator of its own there, so nothing is contended.
+Then the same number of draws from all threads: move cells from one shared java.util.Random (the contended CAS),
+from a Random per game (LEGACY) and from a SplittableRandom per game (SPLITTABLE);
+seeds the old way (one shared java.util.Random) vs ThreadLocalRandom.
+End to end: LoadGenerator with -Dload.random=LEGACY vs SPLITTABLE and a high -Dload.concurrency.
+ mvn -Pload test-compile exec:java@random -Drandom.games=200000 -Drandom.threads=8
+ */
+public class RandomBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int CELLS = 9;
+
+    public static void main(String[] args) throws Exception {
+        LoggingSystem.get(RandomBenchmark.class.getClassLoader()).setLogLevel("com.norgorn", LogLevel.WARN);
+        int games = Integer.getInteger("random.games", 200_000);
+        int threads = Integer.getInteger("random.threads", Runtime.getRuntime().availableProcessors());
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 1; round <= ROUNDS; round++) {
+                System.out.printf("Round %d of %d, %d threads%n", round, ROUNDS, threads);
+                for (RandomMode mode : RandomMode.values()) {
+                    selfPlay(pool, threads, games, mode);
+                }
+                Random sharedMoves = new Random();
+                draws(pool, threads, games * 10, "move, shared Random", () -> () -> sharedMoves.nextInt(CELLS));
+                draws(pool, threads, games * 10, "move, Random per game", () -> {
+                    Random own = new Random();
+                    return () -> own.nextInt(CELLS);
+                });
+                draws(pool, threads, games * 10, "move, SplittableRandom per game", () -> {
+                    SplittableRandom own = new SplittableRandom();
+                    return () -> own.nextInt(CELLS);
+                });
+                Random sharedSeeds = new Random();
+                draws(pool, threads, games * 10, "seed, shared Random", () -> () -> sharedSeeds.nextInt(100));
+                draws(pool, threads, games * 10, "seed, ThreadLocalRandom",
+                        () -> () -> ThreadLocalRandom.current().nextInt(100));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.exit(0);
+    }
+
+    private static void selfPlay(ExecutorService pool, int threads, int games, RandomMode mode) throws Exception {
+        int perThread = games / threads;
+        long startedAt = System.nanoTime();
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int firstSeed = t * perThread;
+            results.add(pool.submit(() -> {
+                long moves = 0;
+                for (int seed = firstSeed; seed < firstSeed + perThread; seed++) {
+                    moves += GameReplay.replay(seed, mode).getMovesCount();
+                }
+                return moves;
+            }));
+        }
+        long moves = 0;
+        for (Future<Long> result : results) {
+            moves += result.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        System.out.printf("  self-play %-10s %,10.0f games/s, %.2f us per move%n", mode,
+                perThread * threads / (elapsedNanos / 1e9), elapsedNanos / 1000.0 * threads / moves);
+    }
+
+    // Every thread gets its generator from perThread, which may return the same one to all
+    private static void draws(ExecutorService pool, int threads, int draws, String name,
+                              Supplier<IntSupplier> perThread) throws Exception {
+        int perThreadDraws = draws / threads;
+        long startedAt = System.nanoTime();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                IntSupplier draw = perThread.get();
+                int sum = 0;
+                for (int i = 0; i < perThreadDraws; i++) {
+                    sum += draw.getAsInt();
+                }
+                return sum;
+            }));
+        }
+        for (Future<Integer> result : results) {
+            result.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        System.out.printf("  %-32s %,14.0f draws/s%n", name, perThreadDraws * threads / (elapsedNanos / 1e9));
+    }
+}
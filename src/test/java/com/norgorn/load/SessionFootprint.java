@@ -0,0 +1,152 @@
+package com.norgorn.load;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameBoard;
+import com.norgorn.model.MovePacing;
+import com.norgorn.model.MoveResponse;
+import com.norgorn.service.FlatGameStore;
+import com.norgorn.service.GameSession;
+import com.norgorn.service.GameState;
+import com.norgorn.service.GameStateBean;
+import com.norgorn.service.MovePacer;
+import com.norgorn.service.PeerLiveness;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/*
+Heap retained per game: the whole GameSession with its state, Spring prototype GameStateBean vs FlatGameStore slot.
+Each game makes two moves. Every store is measured in a JVM of its own, so nothing of the other one is on the heap,
+and the baseline is taken after a warm-up with a store and sessions that are thrown away.
+ mvn -Pload test-compile exec:java@footprint -Dfootprint.games=200000
+ */
+public class SessionFootprint {
+
+    private static final Duration MOVE_DELAY = Duration.ofSeconds(1);
+    private static final Duration MOVE_TIMEOUT = Duration.ofMillis(1500);
+    private static final Duration MARGIN = Duration.ofMillis(250);
+    private static final int WARMUP_GAMES = 20_000;
+
+    enum Store {
+        BEAN,
+        FLAT
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = Integer.getInteger("footprint.games", 200_000);
+        String store = System.getProperty("footprint.store");
+        if (store == null) {
+            for (Store each : Store.values()) {
+                fork(each, games);
+            }
+        } else {
+            LoggingSystem.get(SessionFootprint.class.getClassLoader()).setLogLevel("com.norgorn", LogLevel.WARN);
+            measure(Store.valueOf(store), games);
+        }
+        System.exit(0);
+    }
+
+    private static void fork(Store store, int games) throws Exception {
+        List<String> command = List.of(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", classPath(),
+                "-Dfootprint.games=" + games,
+                "-Dfootprint.store=" + store,
+                SessionFootprint.class.getName());
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0)
+            throw new IllegalStateException("Measuring " + store + " failed with " + exitCode);
+    }
+
+    private static void measure(Store store, int games) throws Exception {
+        PeerLiveness peerLiveness = new PeerLiveness(); // not started, sessions only read its epoch
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(GameStateBean.class)) {
+            FlatGameStore flatStore = new FlatGameStore();
+            Supplier<GameState> allocator = store == Store.FLAT
+                    ? flatStore::allocate
+                    : () -> context.getBean(GameStateBean.class);
+            // The warm-up gets a store of its own, so the measured arena is allocated after the baseline
+            play(WARMUP_GAMES, store == Store.FLAT ? new FlatGameStore()::allocate : allocator, peerLiveness);
+
+            List<GameSession> sessions = new ArrayList<>(games);
+            long before = usedHeap();
+            long startedAt = System.nanoTime();
+            sessions.addAll(play(games, allocator, peerLiveness));
+            long elapsedNanos = System.nanoTime() - startedAt;
+            long after = usedHeap();
+
+            long bytesPerGame = (after - before) / games;
+            if (bytesPerGame <= 0)
+                throw new IllegalStateException("Heap didn't grow (" + (after - before)
+                        + " bytes), the measurement is noise, try more -Dfootprint.games");
+            System.out.printf("%s: %d bytes per game session, %.2f us per game to create and play 2 moves%n",
+                    store, bytesPerGame, elapsedNanos / 1000.0 / sessions.size());
+            if (store == Store.FLAT) {
+                System.out.printf("  of which arena: %d bytes for %d games, %d bytes per game%n",
+                        flatStore.getArenaBytes(), flatStore.getSlotsInUse(), flatStore.getArenaBytes() / games);
+            }
+        }
+    }
+
+    private static List<GameSession> play(int games, Supplier<GameState> allocator, PeerLiveness peerLiveness) {
+        List<GameSession> sessions = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            GameState state = allocator.get();
+            state.init(CellSymbol.CROSS, i);
+            GameSession session = new GameSession(String.valueOf(i), state,
+                    new MovePacer(MovePacing.ADAPTIVE, MOVE_DELAY, MOVE_TIMEOUT, MARGIN), peerLiveness);
+            MoveResponse first = state.makeFirstMove();
+            session.recordMoveLatency(1_000_000 + i);
+            state.makeMove(withTheirMove(first.board()));
+            session.recordMoveLatency(2_000_000 + i);
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static GameBoard withTheirMove(GameBoard board) {
+        List<List<CellSymbol>> rows = new ArrayList<>();
+        boolean moved = false;
+        for (List<CellSymbol> row : board.rows()) {
+            List<CellSymbol> newRow = new ArrayList<>(row);
+            for (int i = 0; i < newRow.size() && !moved; i++) {
+                if (newRow.get(i) == CellSymbol.EMPTY) {
+                    newRow.set(i, CellSymbol.NAUGHT);
+                    moved = true;
+                }
+            }
+            rows.add(newRow);
+        }
+        return new GameBoard(rows);
+    }
+
+    // exec:java runs us in a class loader of its own, java.class.path is Maven's then
+    private static String classPath() throws Exception {
+        if (!(SessionFootprint.class.getClassLoader() instanceof URLClassLoader loader))
+            return System.getProperty("java.class.path");
+        StringJoiner classPath = new StringJoiner(File.pathSeparator);
+        for (URL url : loader.getURLs()) {
+            classPath.add(Path.of(url.toURI()).toString());
+        }
+        return classPath.toString();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
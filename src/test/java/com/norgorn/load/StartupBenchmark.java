@@ -0,0 +1,81 @@
+package com.norgorn.load;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Time to first request: from process start until GET /ping answers, for the jar built by mvn -Pstartup package.
+Compare e.g. plain start with -Dstartup.jvm_args="-XX:SharedArchiveFile=target/app.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=lean"
+ mvn -Pload test-compile exec:java@startup -Dstartup.runs=10 -Dstartup.jvm_args="..."
+ */
+public class StartupBenchmark {
+
+    private static final long START_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final OkHttpClient http = new OkHttpClient.Builder()
+            .connectTimeout(100, TimeUnit.MILLISECONDS)
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String jar = System.getProperty("startup.jar", "target/TicTacToe-1.0-SNAPSHOT.jar");
+        int runs = Integer.getInteger("startup.runs", 5);
+        String jvmArgs = System.getProperty("startup.jvm_args", "");
+
+        StartupBenchmark benchmark = new StartupBenchmark();
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = benchmark.timeToFirstRequestMillis(jar, jvmArgs);
+            System.out.printf("Run %d: %d ms%n", i + 1, millis[i]);
+        }
+        Arrays.sort(millis);
+        System.out.printf("Time to first request with [%s]: min %d ms, median %d ms, max %d ms%n",
+                jvmArgs, millis[0], millis[runs / 2], millis[runs - 1]);
+        System.exit(0);
+    }
+
+    long timeToFirstRequestMillis(String jar, String jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (!jvmArgs.isBlank())
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.addAll(List.of("-Dserver.port=" + port, "-jar", jar));
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            Request ping = new Request.Builder().url("http://localhost:" + port + "/ping").get().build();
+            while (System.nanoTime() - startedAt < START_TIMEOUT_NANOS) {
+                if (!process.isAlive())
+                    throw new IllegalStateException("Exited with " + process.exitValue() + ": " + command);
+                try (Response response = http.newCall(ping).execute()) {
+                    if (response.code() == 200)
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                } catch (Exception notYet) {
+                    Thread.sleep(5);
+                }
+            }
+            throw new IllegalStateException("Not started in time: " + command);
+        } finally {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.norgorn.replay;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameRecord;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.RandomMode;
+import com.norgorn.service.GameExporter;
+import com.norgorn.service.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameReplayTest {
+
+    @Test
+    public void replay_whenSameSeed() {
+        for (int seed = 0; seed < 100; seed++) {
+            GameState first = GameReplay.replay(seed);
+            GameState second = GameReplay.replay(seed);
+            assertEquals(first.getPackedMoves(), second.getPackedMoves());
+            assertEquals(first.getMovesCount(), second.getMovesCount());
+            assertTrue(first.getMovesCount() >= 5 && first.getMovesCount() <= 9);
+        }
+    }
+
+    @Test
+    public void replay_whenSameSeedSplittable() {
+        for (int seed = 0; seed < 100; seed++) {
+            GameState first = GameReplay.replay(seed, RandomMode.SPLITTABLE);
+            GameState second = GameReplay.replay(seed, RandomMode.SPLITTABLE);
+            assertEquals(first.getPackedMoves(), second.getPackedMoves());
+            assertEquals(first.getMovesCount(), second.getMovesCount());
+        }
+    }
+
+    // Moves that java.util.Random made for these seeds before random modes were added
+    @Test
+    public void replay_whenLegacySeedsKeepTheirMoves() {
+        assertEquals(0x134087256L, GameReplay.replay(0, RandomMode.LEGACY).getPackedMoves());
+        assertEquals(0x830127456L, GameReplay.replay(1, RandomMode.LEGACY).getPackedMoves());
+        assertEquals(0x7243658L, GameReplay.replay(42, RandomMode.LEGACY).getPackedMoves());
+        assertEquals(0x4632157L, GameReplay.replay(1000, RandomMode.LEGACY).getPackedMoves());
+    }
+
+    @Test
+    public void compare_whenRecordMatches() {
+        GameState lastMover = GameReplay.replay(42);
+        CellSymbol other = lastMover.getMySymbol() == CellSymbol.CROSS ? CellSymbol.NAUGHT : CellSymbol.CROSS;
+        GameStatus otherResult = lastMover.getGameStatus() == GameStatus.DRAW ? GameStatus.DRAW : GameStatus.LOST;
+
+        GameRecord record = record(other, otherResult, lastMover.getMovesCount(), lastMover.getPackedMoves());
+        assertEquals(Optional.empty(), GameReplay.compare(record, lastMover));
+    }
+
+    @Test
+    public void compare_whenFailedGameIsPrefix() {
+        GameState lastMover = GameReplay.replay(42);
+        GameRecord record = record(CellSymbol.CROSS, GameStatus.DETECTED_ERROR, 3, lastMover.getPackedMoves() & 0xFFF);
+        assertEquals(Optional.empty(), GameReplay.compare(record, lastMover));
+    }
+
+    @Test
+    public void compare_whenMovesDiffer() {
+        GameState lastMover = GameReplay.replay(42);
+        GameRecord record = record(lastMover.getMySymbol(), lastMover.getGameStatus(), lastMover.getMovesCount(),
+                lastMover.getPackedMoves() ^ 0x1);
+        assertTrue(GameReplay.compare(record, lastMover).isPresent());
+    }
+
+    @Test
+    public void record_whenWrittenAndRead() throws IOException {
+        GameRecord record = new GameRecord("game-1", 1000, 1250, 42, RandomMode.SPLITTABLE, CellSymbol.NAUGHT,
+                GameStatus.WON, 7, 0x1234567L, new int[]{150, 220, 180});
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bytes));
+        GameRecord read = GameRecord.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                GameExporter.VERSION);
+
+        assertEquals(record.gameId(), read.gameId());
+        assertEquals(record.seed(), read.seed());
+        assertEquals(RandomMode.SPLITTABLE, read.randomMode());
+        assertEquals(record.mySymbol(), read.mySymbol());
+        assertEquals(record.result(), read.result());
+        assertEquals(record.packedMoves(), read.packedMoves());
+        assertEquals(7, read.movesCount());
+        assertEquals(0x7, read.move(0));
+        assertArrayEquals(record.moveLatenciesMicros(), read.moveLatenciesMicros());
+    }
+
+    @Test
+    public void record_whenCorrupt() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record(CellSymbol.CROSS, GameStatus.WON, 5, 0x12345L).write(new DataOutputStream(bytes));
+        byte[] corrupt = bytes.toByteArray();
+        corrupt[corrupt.length - 11] = 42; // result
+
+        IOException e = assertThrows(IOException.class, () ->
+                GameRecord.read(new DataInputStream(new ByteArrayInputStream(corrupt)), GameExporter.VERSION));
+        assertTrue(e.getMessage().startsWith("Corrupt record"), e.getMessage());
+    }
+
+    private static GameRecord record(CellSymbol symbol, GameStatus result, int movesCount, long packedMoves) {
+        return new GameRecord("1", 0, 10, 42, RandomMode.LEGACY, symbol, result, movesCount, packedMoves, new int[0]);
+    }
+}
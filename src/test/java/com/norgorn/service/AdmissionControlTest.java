@@ -0,0 +1,96 @@
+package com.norgorn.service;
+
+import com.norgorn.model.AdmissionStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    private static final String PEER = "10.0.0.1";
+
+    private AdmissionControl sut;
+
+    @BeforeEach
+    public void setUp() {
+        sut = new AdmissionControl();
+        sut.runMaxConcurrent = 1;
+        sut.moveMaxConcurrent = 2;
+        sut.peerMaxConcurrent = 1;
+        sut.maxWait = Duration.ofMillis(50);
+        sut.init();
+    }
+
+    @Test
+    public void admit_whenPeerFull() {
+        Optional<AdmissionControl.Permit> permit = sut.admit(AdmissionControl.Endpoint.MOVE, PEER);
+        assertTrue(permit.isPresent());
+
+        long startedAt = System.nanoTime();
+        assertFalse(sut.admit(AdmissionControl.Endpoint.MOVE, PEER).isPresent());
+        assertTrue(System.nanoTime() - startedAt < Duration.ofMillis(100).toNanos(), "rejected within max_wait");
+
+        Map<String, AdmissionStats> stats = sut.getStats();
+        assertEquals(new AdmissionStats(1, 0, 1, 0), stats.get("move")); // had room, the peer limit rejected it
+        assertEquals(new AdmissionStats(1, 0, 1, 1), stats.get("peer " + PEER));
+    }
+
+    @Test
+    public void admit_whenPeerQueued() throws Exception {
+        sut.peerMaxQueue = 1;
+        sut.maxWait = Duration.ofSeconds(10);
+        AdmissionControl.Permit first = sut.admit(AdmissionControl.Endpoint.MOVE, PEER).orElseThrow();
+        CompletableFuture<Optional<AdmissionControl.Permit>> queued =
+                CompletableFuture.supplyAsync(() -> sut.admit(AdmissionControl.Endpoint.MOVE, PEER));
+        long giveUpAt = System.nanoTime() + sut.maxWait.toNanos();
+        while (sut.getStats().get("peer " + PEER).queued() == 0 && System.nanoTime() < giveUpAt) {
+            Thread.sleep(1);
+        }
+
+        // The queued one holds no place of the endpoint, another peer gets it
+        AdmissionControl.Permit other = sut.admit(AdmissionControl.Endpoint.MOVE, "10.0.0.2").orElseThrow();
+        assertEquals(new AdmissionStats(2, 0, 2, 0), sut.getStats().get("move"));
+
+        other.release();
+        first.release();
+        assertTrue(queued.get(10, TimeUnit.SECONDS).isPresent());
+    }
+
+    @Test
+    public void release_whenPeerDone() {
+        AdmissionControl.Permit permit = sut.admit(AdmissionControl.Endpoint.RUN, PEER).orElseThrow();
+        assertFalse(sut.admit(AdmissionControl.Endpoint.MOVE, PEER).isPresent());
+        permit.release();
+        sut.admit(AdmissionControl.Endpoint.MOVE, "10.0.0.2").orElseThrow().release();
+
+        assertEquals(0, sut.getActivePeers());
+        // Their limiters are gone, the counters stay
+        Map<String, AdmissionStats> stats = sut.getStats();
+        assertEquals(new AdmissionStats(0, 0, 1, 1), stats.get("peer " + PEER));
+        assertEquals(new AdmissionStats(0, 0, 1, 0), stats.get("peer 10.0.0.2"));
+
+        sut.admit(AdmissionControl.Endpoint.MOVE, PEER).orElseThrow().release();
+        assertEquals(new AdmissionStats(0, 0, 2, 1), sut.getStats().get("peer " + PEER)); // counted on
+    }
+
+    @Test
+    public void getStats_whenManyPeers() {
+        for (int i = 0; i <= AdmissionControl.PEERS_REPORTED; i++) {
+            sut.admit(AdmissionControl.Endpoint.MOVE, "peer" + i).orElseThrow().release();
+        }
+
+        Map<String, AdmissionStats> stats = sut.getStats();
+        assertEquals(AdmissionControl.PEERS_REPORTED + 2, stats.size());
+        assertFalse(stats.containsKey("peer peer0"));
+        assertTrue(stats.containsKey("peer peer" + AdmissionControl.PEERS_REPORTED));
+    }
+}
@@ -0,0 +1,71 @@
+package com.norgorn.service;
+
+import com.norgorn.model.AdmissionStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionLimiterTest {
+
+    private static final long LONG_WAIT = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void tryAcquire_whenFree() {
+        AdmissionLimiter sut = new AdmissionLimiter(2, 0);
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+        assertFalse(sut.tryAcquire(System.nanoTime()));
+        sut.admitted();
+        assertEquals(new AdmissionStats(2, 0, 1, 1), sut.getStats());
+    }
+
+    @Test
+    public void tryAcquire_whenQueueFull() throws Exception {
+        AdmissionLimiter sut = new AdmissionLimiter(1, 1);
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> sut.tryAcquire(System.nanoTime() + LONG_WAIT));
+        awaitQueued(sut, 1);
+
+        long startedAt = System.nanoTime();
+        assertFalse(sut.tryAcquire(startedAt + LONG_WAIT));
+        assertTrue(System.nanoTime() - startedAt < LONG_WAIT / 2, "rejected without waiting");
+        assertEquals(new AdmissionStats(1, 1, 0, 1), sut.getStats());
+
+        sut.release();
+        assertTrue(queued.get(LONG_WAIT, TimeUnit.NANOSECONDS));
+        assertEquals(new AdmissionStats(1, 0, 0, 1), sut.getStats());
+    }
+
+    @Test
+    public void tryAcquire_whenDeadlinePasses() {
+        AdmissionLimiter sut = new AdmissionLimiter(1, 1);
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+
+        long startedAt = System.nanoTime();
+        assertFalse(sut.tryAcquire(startedAt + TimeUnit.MILLISECONDS.toNanos(50)));
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(new AdmissionStats(1, 0, 0, 1), sut.getStats());
+    }
+
+    @Test
+    public void release_whenDone() {
+        AdmissionLimiter sut = new AdmissionLimiter(1, 0);
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+        sut.release();
+        assertTrue(sut.tryAcquire(System.nanoTime()));
+        assertEquals(new AdmissionStats(1, 0, 0, 0), sut.getStats());
+    }
+
+    private static void awaitQueued(AdmissionLimiter sut, int queued) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + LONG_WAIT;
+        while (sut.getStats().queued() < queued && System.nanoTime() < giveUpAt) {
+            Thread.sleep(1);
+        }
+        assertEquals(queued, sut.getStats().queued());
+    }
+}
@@ -0,0 +1,100 @@
+package com.norgorn.service;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.RandomMode;
+import com.norgorn.replay.GameReplay;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatGameStoreTest {
+
+    FlatGameStore sut = new FlatGameStore();
+
+    @Test
+    public void makeMove_whenSameSeedAsGameStateBean() {
+        for (int seed = -50; seed < 500; seed++) {
+            GameState expected = GameReplay.replay(new GameStateBean(), new GameStateBean(), seed);
+            GameState actual = GameReplay.replay(sut.allocate(), sut.allocate(), seed);
+
+            assertEquals(expected.getPackedMoves(), actual.getPackedMoves(), "seed " + seed);
+            assertEquals(expected.getMovesCount(), actual.getMovesCount(), "seed " + seed);
+            assertEquals(expected.getGameStatus(), actual.getGameStatus(), "seed " + seed);
+            assertEquals(expected.getPreviousBoard().toString(), actual.getPreviousBoard().toString(), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void makeMove_whenSameSeedAsGameStateBeanSplittable() {
+        for (int seed = -50; seed < 500; seed++) {
+            GameState expected = GameReplay.replay(new GameStateBean(), new GameStateBean(), seed, RandomMode.SPLITTABLE);
+            GameState actual = GameReplay.replay(sut.allocate(), sut.allocate(), seed, RandomMode.SPLITTABLE);
+
+            assertEquals(expected.getPackedMoves(), actual.getPackedMoves(), "seed " + seed);
+            assertEquals(expected.getGameStatus(), actual.getGameStatus(), "seed " + seed);
+            assertEquals(RandomMode.SPLITTABLE, actual.getRandomMode());
+        }
+    }
+
+    @Test
+    public void validateMove_whenSameAsGameStateBean() {
+        GameState flat = sut.allocate();
+        flat.init(CellSymbol.NAUGHT, 7);
+        GameStateBean bean = new GameStateBean();
+        bean.init(CellSymbol.CROSS, 7);
+        var crossMove = bean.makeFirstMove().board();
+
+        assertEquals(Optional.empty(), flat.validateMove(crossMove));
+        assertEquals(Optional.of("no move"), flat.validateMove(flat.getPreviousBoard()));
+    }
+
+    @Test
+    public void getBoardFromHistory_whenOurLastBoard() {
+        GameState flat = sut.allocate();
+        flat.init(CellSymbol.CROSS, 3);
+        assertEquals(Optional.empty(), flat.getBoardFromHistory(flat.getPreviousBoard()));
+
+        var ourBoard = flat.makeFirstMove().board();
+        assertEquals(Optional.of(ourBoard), flat.getBoardFromHistory(ourBoard));
+    }
+
+    @Test
+    public void release_whenSlotReused() {
+        GameState first = sut.allocate();
+        first.init(CellSymbol.CROSS, 1);
+        first.setGameStatus(GameStatus.WON);
+        sut.release(first);
+        assertEquals(0, sut.getSlotsInUse());
+
+        GameState second = sut.allocate();
+        assertEquals(GameStatus.WAITING, second.getGameStatus());
+        assertEquals(0, second.getMoveCounter());
+        assertThrows(IllegalStateException.class, first::getGameStatus);
+        assertThrows(IllegalStateException.class, () -> sut.release(first));
+    }
+
+    @Test
+    public void makeMove_whenStaleHandle() {
+        GameState first = sut.allocate();
+        first.init(CellSymbol.CROSS, 1);
+        sut.release(first);
+        GameState second = sut.allocate();
+        second.init(CellSymbol.NAUGHT, 2);
+
+        assertThrows(IllegalStateException.class, first::makeFirstMove);
+        assertThrows(IllegalStateException.class, () -> first.setGameStatus(GameStatus.WON));
+        assertThrows(IllegalStateException.class, first::incrementAndGetMoveCounter);
+        assertEquals(0, second.getMovesCount());
+        assertEquals(0, second.getMoveCounter());
+        assertEquals(GameStatus.WAITING, second.getGameStatus());
+        assertEquals(CellSymbol.NAUGHT, second.getMySymbol());
+        assertEquals(Optional.empty(), second.getBoardFromHistory(second.getPreviousBoard()));
+
+        // and the slot is not left locked by the failed writes
+        second.makeFirstMove();
+        assertEquals(1, second.getMovesCount());
+    }
+}
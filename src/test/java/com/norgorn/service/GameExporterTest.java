@@ -0,0 +1,57 @@
+package com.norgorn.service;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameRecord;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.RandomMode;
+import com.norgorn.replay.GameReplay;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameExporterTest {
+
+    @Test
+    public void export_whenTwoInstancesShareDir() throws Exception {
+        Path dir = Files.createTempDirectory("export");
+        GameExporter first = exporter(dir);
+        GameExporter second = exporter(dir);
+        for (int i = 0; i < 100; i++) {
+            first.export(record("first-" + i));
+            second.export(record("second-" + i));
+        }
+        first.stop();
+        second.stop();
+
+        List<GameRecord> read = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> all = files.toList();
+            assertEquals(2, all.size());
+            for (Path file : all) {
+                GameReplay.read(file, read::add);
+            }
+        }
+        assertEquals(200, read.size());
+    }
+
+    private static GameExporter exporter(Path dir) {
+        GameExporter exporter = new GameExporter();
+        exporter.exportDir = dir.toString();
+        exporter.maxFileSize = DataSize.ofMegabytes(1);
+        exporter.queueSize = 1000;
+        exporter.start();
+        return exporter;
+    }
+
+    private static GameRecord record(String gameId) {
+        return new GameRecord(gameId, 0, 10, 42, RandomMode.SPLITTABLE, CellSymbol.CROSS, GameStatus.WON,
+                5, 0x12345L, new int[]{100});
+    }
+}
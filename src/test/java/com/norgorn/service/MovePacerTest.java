@@ -0,0 +1,46 @@
+package com.norgorn.service;
+
+import com.norgorn.model.MovePacing;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovePacerTest {
+
+    private static final Duration DELAY = Duration.ofMillis(1000);
+    private static final Duration TIMEOUT = Duration.ofMillis(1500);
+    private static final Duration MARGIN = Duration.ofMillis(250);
+
+    @Test
+    public void nextDelay_whenNone() {
+        MovePacer sut = new MovePacer(MovePacing.NONE, DELAY, TIMEOUT, MARGIN);
+        sut.recordRoundTrip(100);
+        assertEquals(0, sut.nextDelayMillis());
+    }
+
+    @Test
+    public void nextDelay_whenFixed() {
+        MovePacer sut = new MovePacer(MovePacing.FIXED, DELAY, TIMEOUT, MARGIN);
+        sut.recordRoundTrip(1000);
+        assertEquals(1000, sut.nextDelayMillis());
+    }
+
+    @Test
+    public void nextDelay_whenAdaptiveAndFastPeer() {
+        MovePacer sut = new MovePacer(MovePacing.ADAPTIVE, DELAY, TIMEOUT, MARGIN);
+        assertEquals(1000, sut.nextDelayMillis());
+        sut.recordRoundTrip(10); // 10 + 4 * 5 = 30, still fits with full delay
+        assertEquals(1000, sut.nextDelayMillis());
+    }
+
+    @Test
+    public void nextDelay_whenAdaptiveAndSlowPeer() {
+        MovePacer sut = new MovePacer(MovePacing.ADAPTIVE, DELAY, TIMEOUT, MARGIN);
+        sut.recordRoundTrip(200); // 200 + 4 * 100 = 600 -> 1500 - 250 - 600
+        assertEquals(650, sut.nextDelayMillis());
+        sut.recordRoundTrip(2000);
+        assertEquals(0, sut.nextDelayMillis());
+    }
+}
@@ -0,0 +1,135 @@
+package com.norgorn.service;
+
+import com.norgorn.model.CellSymbol;
+import com.norgorn.model.GameStatus;
+import com.norgorn.model.MovePacing;
+import com.norgorn.model.PeerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PeerLivenessTest {
+
+    private static final Duration INTERVAL = Duration.ofMillis(250);
+    private static final Duration DEAD_AFTER = Duration.ofMillis(1000);
+
+    PeerLiveness sut;
+
+    boolean answering;
+    long nowNanos;
+
+    @BeforeEach
+    public void init() {
+        sut = liveness();
+        sut.heard();
+    }
+
+    @Test
+    public void beat_whenPeerAnswers() {
+        answering = true;
+        passMillis(5000);
+        sut.beat();
+        assertEquals(PeerState.ALIVE, sut.getState());
+        assertEquals(0, sut.getEpoch());
+    }
+
+    @Test
+    public void beat_whenPeerNotUpYet() {
+        sut = liveness(); // never heard from
+        passMillis(5000);
+        sut.beat();
+        assertEquals(PeerState.UNKNOWN, sut.getState());
+        assertEquals(0, sut.getEpoch());
+
+        answering = true;
+        sut.beat();
+        assertEquals(PeerState.ALIVE, sut.getState());
+        answering = false;
+        passMillis(1100);
+        sut.beat();
+        assertEquals(PeerState.DEAD, sut.getState());
+    }
+
+    @Test
+    public void beat_whenPeerSilent() {
+        passMillis(400); // less than 2 intervals
+        sut.beat();
+        assertEquals(PeerState.ALIVE, sut.getState());
+
+        passMillis(200);
+        sut.beat();
+        assertEquals(PeerState.SUSPECT, sut.getState());
+        assertEquals(0, sut.getEpoch());
+
+        passMillis(500);
+        sut.beat();
+        assertEquals(PeerState.DEAD, sut.getState());
+        assertEquals(1, sut.getEpoch());
+
+        passMillis(500);
+        sut.beat();
+        assertEquals(1, sut.getEpoch()); // dead only once
+    }
+
+    @Test
+    public void heard_whenPeerWasDead() {
+        AtomicInteger deaths = new AtomicInteger();
+        sut.onDeath(deaths::incrementAndGet);
+        passMillis(1100);
+        sut.beat();
+        assertEquals(1, deaths.get());
+
+        sut.heard();
+        assertEquals(PeerState.ALIVE, sut.getState());
+        passMillis(1100);
+        sut.beat();
+        assertEquals(2, sut.getEpoch());
+        assertEquals(2, deaths.get());
+    }
+
+    @Test
+    public void getStatus_whenPeerDiedDuringGame() {
+        GameSession waiting = session(GameStatus.WAITING);
+        GameSession thinking = session(GameStatus.THINKING);
+        GameSession won = session(GameStatus.WON);
+
+        passMillis(1100);
+        sut.beat();
+
+        assertEquals(GameStatus.DETECTED_ERROR, waiting.getStatus());
+        assertEquals(GameStatus.DETECTED_ERROR, thinking.getStatus());
+        assertEquals(GameStatus.WON, won.getStatus());
+        assertEquals(GameStatus.WAITING, waiting.getState().getGameStatus()); // stored only under the session lock
+        // Games started after that are fine
+        assertEquals(GameStatus.WAITING, session(GameStatus.WAITING).getStatus());
+    }
+
+    private PeerLiveness liveness() {
+        PeerLiveness liveness = new PeerLiveness();
+        liveness.client = new GameClient() {
+            @Override
+            public boolean heartbeat(Duration timeout) {
+                return answering;
+            }
+        };
+        liveness.heartbeatInterval = INTERVAL;
+        liveness.deadAfter = DEAD_AFTER;
+        liveness.clock = () -> nowNanos;
+        return liveness;
+    }
+
+    private GameSession session(GameStatus status) {
+        GameStateBean state = new GameStateBean();
+        state.init(CellSymbol.CROSS, 1);
+        state.setGameStatus(status);
+        return new GameSession("1", state, new MovePacer(MovePacing.NONE, INTERVAL, DEAD_AFTER, INTERVAL), sut);
+    }
+
+    private void passMillis(long millis) {
+        nowNanos += Duration.ofMillis(millis).toNanos();
+    }
+}